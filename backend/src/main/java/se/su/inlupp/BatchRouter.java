@@ -0,0 +1,157 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Svarar på många vägfrågor på en gång. Frågorna grupperas på startnod och varje grupp får en
+// enda Dijkstra-sökning som fortsätter tills alla gruppens mål är klara, så att sökträdet från
+// startnoden delas mellan frågorna. Grupperna fördelas över en fork-join-pool och svaren
+// kommer i samma ordning som frågorna.
+//
+// Sökningarna görs i en CsrGraph som inte kan ändras, så arbetarna krockar aldrig med en
+// skrivare. En annan graf fryses en gång när routern skapas med CsrGraph.freeze, som kopierar
+// en ConcurrentGraph eller VersionedGraph vid ett ögonblick även när andra trådar skriver.
+// Andra grafer får inte ändras medan routern skapas.
+public final class BatchRouter<T> {
+
+  private final CsrGraph<T> graph;
+  private final ForkJoinPool pool;
+
+  public BatchRouter(Graph<T> graph) {
+    this(graph, ForkJoinPool.commonPool());
+  }
+
+  public BatchRouter(Graph<T> graph, ForkJoinPool pool) {
+    this.graph = graph instanceof CsrGraph<T> frozen ? frozen : CsrGraph.freeze(graph);
+    this.pool = pool;
+  }
+
+  public CsrGraph<T> getGraph() {
+    return graph;
+  }
+
+  public static final class Batch<T> {
+    private final List<PathResult<T>> results;
+    private final int sources;
+    private final long nanos;
+    private final long searchNanos;
+    private final long expandedNodes;
+
+    Batch(List<PathResult<T>> results, int sources, long nanos, long searchNanos, long expandedNodes) {
+      this.results = results;
+      this.sources = sources;
+      this.nanos = nanos;
+      this.searchNanos = searchNanos;
+      this.expandedNodes = expandedNodes;
+    }
+
+    // Ett svar per fråga, i frågornas ordning. Frågor med samma startnod delar sökning och
+    // anger samma antal expanderade noder.
+    public List<PathResult<T>> getResults() {
+      return results;
+    }
+
+    public PathResult<T> get(int index) {
+      return results.get(index);
+    }
+
+    public int getQueries() {
+      return results.size();
+    }
+
+    // Antal olika startnoder, alltså antal sökningar
+    public int getSources() {
+      return sources;
+    }
+
+    // Tid för hela satsen
+    public long getNanos() {
+      return nanos;
+    }
+
+    // Summan av sökningarnas tider över alla trådar
+    public long getSearchNanos() {
+      return searchNanos;
+    }
+
+    public long getExpandedNodes() {
+      return expandedNodes;
+    }
+
+    public double getQueriesPerSecond() {
+      return nanos == 0 ? 0 : results.size() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%d frågor, %d sökningar, %.1f ms, %.0f frågor/s, %d expanderade noder",
+          results.size(), sources, nanos / 1e6, getQueriesPerSecond(), expandedNodes);
+    }
+  }
+
+  // Kortaste vägen för varje par (från, till). Ett par där någon nod saknas i grafen får ett
+  // svar utan väg.
+  public Batch<T> route(List<? extends Map.Entry<T, T>> queries) {
+    long start = System.nanoTime();
+    int count = queries.size();
+    Object[] results = new Object[count];
+
+    // Startnod i de övre 32 bitarna och frågans index i de nedre, så att sorteringen lägger
+    // frågor med samma startnod efter varandra
+    long[] keys = new long[count];
+    int[] goals = new int[count];
+    int valid = 0;
+    for (int i = 0; i < count; i++) {
+      Map.Entry<T, T> query = queries.get(i);
+      int source = graph.indexOf(query.getKey());
+      int target = graph.indexOf(query.getValue());
+      if (source < 0 || target < 0) {
+        results[i] = new PathResult<T>(null, 0);
+        continue;
+      }
+      goals[i] = target;
+      keys[valid++] = (long) source << 32 | i;
+    }
+    Arrays.sort(keys, 0, valid);
+
+    // Varje grupp är ett intervall i keys
+    int[] groupStarts = new int[valid + 1];
+    int groupCount = 0;
+    for (int i = 0; i < valid; i++) {
+      if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) {
+        groupStarts[groupCount++] = i;
+      }
+    }
+    groupStarts[groupCount] = valid;
+    int groups = groupCount;
+
+    long[] searchNanos = new long[groups];
+    long[] expanded = new long[groups];
+    pool.submit(() -> IntStream.range(0, groups).parallel().forEach(group -> {
+      long searchStart = System.nanoTime();
+      int from = groupStarts[group];
+      int to = groupStarts[group + 1];
+      int source = (int) (keys[from] >>> 32);
+      int[] targets = new int[to - from];
+      for (int i = from; i < to; i++) {
+        targets[i - from] = goals[(int) keys[i]];
+      }
+      Arrays.sort(targets);
+
+      SearchState s = graph.state();
+      int visited = graph.dijkstra(s, source, targets);
+      for (int i = from; i < to; i++) {
+        int index = (int) keys[i];
+        results[index] = new PathResult<>(graph.pathTo(s, goals[index]), visited);
+      }
+      expanded[group] = visited;
+      searchNanos[group] = System.nanoTime() - searchStart;
+    })).join();
+
+    @SuppressWarnings("unchecked")
+    List<PathResult<T>> list = (List<PathResult<T>>) (List<?>) Arrays.asList(results);
+    return new Batch<>(Collections.unmodifiableList(list), groups, System.nanoTime() - start,
+        Arrays.stream(searchNanos).sum(), Arrays.stream(expanded).sum());
+  }
+}
@@ -0,0 +1,226 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+// Lägger en begränsad cache med vägsökningar framför en annan graf. Svaren sparas per
+// (från, till, typ av sökning) och den post som använts minst nyligen kastas när cachen är full.
+//
+// Varje ändring som kan påverka en väg (connect, disconnect, setConnectionWeight och remove)
+// räknar upp en version, och poster från en äldre version används aldrig. Att lägga till en
+// nod påverkar inga befintliga vägar; svar där någon ändpunkt saknas sparas inte, så add
+// behöver inte räkna upp versionen. Grafen måste ändras genom cachen, och bågarna i ett
+// cachat svar ska inte ändras direkt med Edge.setWeight. Som ListGraph är klassen inte trådsäker.
+public class CachedGraph<T> implements Graph<T> {
+
+  private enum Query {
+    PATH_EXISTS, PATH, FEWEST_HOPS, SHORTEST
+  }
+
+  private static final class Key {
+    final Object from;
+    final Object to;
+    final Query query;
+
+    Key(Object from, Object to, Query query) {
+      this.from = from;
+      this.to = to;
+      this.query = query;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key key && key.query == query && Objects.equals(key.from, from) && Objects.equals(key.to, to);
+    }
+
+    @Override
+    public int hashCode() {
+      return (Objects.hashCode(from) * 31 + Objects.hashCode(to)) * 31 + query.hashCode();
+    }
+  }
+
+  private static final class Entry {
+    final long version;
+    final Object value;
+
+    Entry(long version, Object value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+
+  private final Graph<T> graph;
+  private final int capacity;
+  private final LinkedHashMap<Key, Entry> cache;
+  private long version;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long staleEntries;
+
+  public CachedGraph(Graph<T> graph, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cachen måste rymma minst ett svar.");
+    }
+    this.graph = graph;
+    this.capacity = capacity;
+    // accessOrder = true: get flyttar posten sist, så den äldsta är den minst nyligen använda
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > CachedGraph.this.capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private <R> R cached(T from, T to, Query query, Supplier<R> search) {
+    Key key = new Key(from, to, query);
+    Entry entry = cache.get(key);
+    if (entry != null) {
+      if (entry.version == version) {
+        hits++;
+        return (R) entry.value;
+      }
+      cache.remove(key);
+      staleEntries++;
+    }
+    misses++;
+    R value = search.get();
+    Set<T> nodes = graph.getNodes();
+    if (nodes.contains(from) && nodes.contains(to)) {
+      cache.put(key, new Entry(version, value));
+    }
+    return value;
+  }
+
+  private void changed() {
+    version++;
+  }
+
+  @Override
+  public void add(T node) {
+    graph.add(node);
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    graph.connect(node1, node2, name, weight);
+    changed();
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    graph.setConnectionWeight(node1, node2, weight);
+    changed();
+  }
+
+  @Override
+  public void disconnect(T node1, T node2) {
+    graph.disconnect(node1, node2);
+    changed();
+  }
+
+  @Override
+  public void remove(T node) {
+    graph.remove(node);
+    changed();
+  }
+
+  @Override
+  public Set<T> getNodes() {
+    return graph.getNodes();
+  }
+
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    return graph.getEdgesFrom(node);
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    return graph.getEdgeBetween(node1, node2);
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    return cached(from, to, Query.PATH_EXISTS, () -> graph.pathExists(from, to));
+  }
+
+  // Vägarna som returneras kan inte ändras, eftersom samma lista delas mellan anropen
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    return cached(from, to, Query.PATH, () -> unmodifiable(graph.getPath(from, to)));
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    return cached(from, to, Query.FEWEST_HOPS, () -> unmodifiable(graph.getFewestHopsPath(from, to)));
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    return cached(from, to, Query.SHORTEST, () -> {
+      PathResult<T> result = graph.findShortestPath(from, to);
+      return new PathResult<>(unmodifiable(result.getEdges()), result.getExpandedNodes());
+    });
+  }
+
+  // Sparas inte i cachen
+  @Override
+  public List<List<Edge<T>>> getShortestPaths(T from, T to, int k) {
+    return graph.getShortestPaths(from, to, k);
+  }
+
+  private static <E> List<E> unmodifiable(List<E> list) {
+    return list == null ? null : Collections.unmodifiableList(list);
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  // Poster som kastades för att cachen var full
+  public long getEvictions() {
+    return evictions;
+  }
+
+  // Poster som hittades men var från en äldre version av grafen
+  public long getStaleEntries() {
+    return staleEntries;
+  }
+
+  public void clear() {
+    cache.clear();
+  }
+
+  @Override
+  public String toString() {
+    return graph.toString();
+  }
+}
@@ -0,0 +1,363 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+// Trådsäker graf. Varje nod har ett eget StampedLock: läsare kopierar nodens bågar under en
+// optimistisk läsning och tar bara läslåset om en skrivare hann emellan, så läsare blockerar
+// aldrig varandra. Skrivare låser bara de noder som ändras, alltid i stigande ordningsnummer
+// så att två skrivare aldrig kan vänta på varandra.
+//
+// Bågobjekten ändras aldrig efter att de lagts in; setConnectionWeight ersätter dem med nya.
+// Vägsökningar läser varje nods bågar atomärt men ser inte grafen som en helhet vid en
+// enda tidpunkt om den ändras under sökningen. freeze ger en kopia av hela grafen vid ett
+// och samma ögonblick.
+public class ConcurrentGraph<T> implements Graph<T> {
+
+  private static final AtomicLong ORDER = new AtomicLong();
+
+  private final Map<T, NodeEntry<T>> entries = new ConcurrentHashMap<>();
+
+  private static final class NodeEntry<T> {
+    final long order = ORDER.getAndIncrement(); // låsordning
+    final StampedLock lock = new StampedLock();
+    @SuppressWarnings("unchecked")
+    Edge<T>[] edges = (Edge<T>[]) new Edge<?>[4];
+    int size;
+    boolean removed;
+
+    // Kopia av bågarna, läst optimistiskt med läslås som reserv
+    Edge<T>[] snapshot() {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        Edge<T>[] current = edges;
+        Edge<T>[] copy = Arrays.copyOf(current, Math.min(size, current.length));
+        if (lock.validate(stamp)) {
+          return copy;
+        }
+      }
+      stamp = lock.readLock();
+      try {
+        return Arrays.copyOf(edges, size);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    Edge<T> find(T destination) {
+      for (int i = 0; i < size; i++) {
+        if (edges[i].getDestination().equals(destination)) {
+          return edges[i];
+        }
+      }
+      return null;
+    }
+
+    // Anropas med skrivlåset taget
+    void add(Edge<T> edge) {
+      if (size == edges.length) {
+        edges = Arrays.copyOf(edges, size * 2);
+      }
+      edges[size++] = edge;
+    }
+
+    // Anropas med skrivlåset taget
+    void replace(T destination, Edge<T> replacement) {
+      for (int i = 0; i < size; i++) {
+        if (edges[i].getDestination().equals(destination)) {
+          if (replacement == null) {
+            edges[i] = edges[--size];
+            edges[size] = null;
+          } else {
+            edges[i] = replacement;
+          }
+          return;
+        }
+      }
+    }
+  }
+
+  private NodeEntry<T> entry(T node) {
+    NodeEntry<T> entry = entries.get(node);
+    if (entry == null) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    return entry;
+  }
+
+  // Sorterar noderna i låsordning, tar bort dubbletter och tar skrivlåsen i stigande ordning.
+  // Returnerar stämplarna i samma ordning som noderna.
+  private static long[] lockAll(List<NodeEntry<?>> locked) {
+    locked.sort(Comparator.comparingLong(entry -> entry.order));
+    int distinct = 0;
+    for (int i = 0; i < locked.size(); i++) {
+      if (distinct == 0 || locked.get(i) != locked.get(distinct - 1)) {
+        locked.set(distinct++, locked.get(i));
+      }
+    }
+    locked.subList(distinct, locked.size()).clear();
+    long[] stamps = new long[locked.size()];
+    for (int i = 0; i < stamps.length; i++) {
+      stamps[i] = locked.get(i).lock.writeLock();
+    }
+    return stamps;
+  }
+
+  private static void unlockAll(List<NodeEntry<?>> locked, long[] stamps) {
+    for (int i = stamps.length - 1; i >= 0; i--) {
+      locked.get(i).lock.unlockWrite(stamps[i]);
+    }
+  }
+
+  // Låser båda ändpunkterna, en gång om de är samma nod
+  private static List<NodeEntry<?>> pair(NodeEntry<?> entry1, NodeEntry<?> entry2) {
+    List<NodeEntry<?>> pair = new ArrayList<>(2);
+    pair.add(entry1);
+    if (entry2 != entry1) {
+      pair.add(entry2);
+    }
+    return pair;
+  }
+
+  @Override
+  public void add(T node) {
+    entries.putIfAbsent(node, new NodeEntry<>());
+  }
+
+  @Override
+  public void remove(T node) {
+    NodeEntry<T> entry = entry(node);
+    while (true) {
+      // Lås noden och alla dess grannar; försök igen om grannarna hann ändras innan låsen togs
+      Edge<T>[] neighbors = entry.snapshot();
+      List<NodeEntry<?>> locked = new ArrayList<>(neighbors.length + 1);
+      locked.add(entry);
+      for (Edge<T> edge : neighbors) {
+        NodeEntry<T> neighbor = entries.get(edge.getDestination());
+        if (neighbor != null) {
+          locked.add(neighbor);
+        }
+      }
+      long[] stamps = lockAll(locked);
+      try {
+        if (entry.removed) {
+          throw new NoSuchElementException("Noden finns inte i grafen.");
+        }
+        if (!Arrays.equals(neighbors, Arrays.copyOf(entry.edges, entry.size))) {
+          continue;
+        }
+        for (Edge<T> edge : neighbors) {
+          NodeEntry<T> neighbor = entries.get(edge.getDestination());
+          if (neighbor != null && neighbor != entry) {
+            neighbor.replace(node, null);
+          }
+        }
+        entry.removed = true;
+        entries.remove(node, entry);
+        return;
+      } finally {
+        unlockAll(locked, stamps);
+      }
+    }
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    NodeEntry<T> entry1 = entries.get(node1);
+    NodeEntry<T> entry2 = entries.get(node2);
+    if (entry1 == null || entry2 == null) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    if (weight < 0) {
+      throw new IllegalArgumentException("Vikten får inte vara negativ.");
+    }
+
+    List<NodeEntry<?>> locked = pair(entry1, entry2);
+    long[] stamps = lockAll(locked);
+    try {
+      if (entry1.removed || entry2.removed) {
+        throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+      }
+      if (entry1.find(node2) != null) {
+        throw new IllegalStateException("En förbindelse mellan noderna finns redan.");
+      }
+      entry1.add(new Edge<>(node2, name, weight));
+      entry2.add(new Edge<>(node1, name, weight));
+    } finally {
+      unlockAll(locked, stamps);
+    }
+  }
+
+  @Override
+  public void disconnect(T node1, T node2) {
+    NodeEntry<T> entry1 = entries.get(node1);
+    NodeEntry<T> entry2 = entries.get(node2);
+    if (entry1 == null || entry2 == null) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    List<NodeEntry<?>> locked = pair(entry1, entry2);
+    long[] stamps = lockAll(locked);
+    try {
+      if (entry1.removed || entry2.removed) {
+        throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+      }
+      if (entry1.find(node2) == null || entry2.find(node1) == null) {
+        throw new IllegalStateException("Det finns ingen förbindelse mellan dessa noder.");
+      }
+      entry1.replace(node2, null);
+      entry2.replace(node1, null);
+    } finally {
+      unlockAll(locked, stamps);
+    }
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Vikten får inte vara negativ.");
+    }
+
+    NodeEntry<T> entry1 = entries.get(node1);
+    NodeEntry<T> entry2 = entries.get(node2);
+    if (entry1 == null || entry2 == null) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    List<NodeEntry<?>> locked = pair(entry1, entry2);
+    long[] stamps = lockAll(locked);
+    try {
+      Edge<T> edge1 = entry1.removed ? null : entry1.find(node2);
+      Edge<T> edge2 = entry2.removed ? null : entry2.find(node1);
+      if (edge1 == null || edge2 == null) {
+        throw new NoSuchElementException("Det finns ingen förbindelse mellan dessa noder.");
+      }
+      entry1.replace(node2, new Edge<>(node2, edge1.getName(), weight));
+      entry2.replace(node1, new Edge<>(node1, edge2.getName(), weight));
+    } finally {
+      unlockAll(locked, stamps);
+    }
+  }
+
+  // Kopierar grafen under alla noders läslås, tagna i låsordning som skrivarnas lås, så att
+  // kopian visar grafen vid ett ögonblick utan att kunna hamna i baklås med en skrivare.
+  // Skrivarna väntar bara medan bågarna kopieras. Har en nod som lades till efter att noderna
+  // räknades redan fått en förbindelse görs kopieringen om.
+  public CsrGraph<T> freeze() {
+    while (true) {
+      List<Map.Entry<T, NodeEntry<T>>> locked = new ArrayList<>(entries.entrySet());
+      locked.sort(Comparator.comparingLong(entry -> entry.getValue().order));
+      long[] stamps = new long[locked.size()];
+      for (int i = 0; i < stamps.length; i++) {
+        stamps[i] = locked.get(i).getValue().lock.readLock();
+      }
+      List<Object> nodes = new ArrayList<>(locked.size());
+      List<List<Edge<T>>> rows = new ArrayList<>(locked.size());
+      boolean complete = true;
+      try {
+        Set<T> live = new HashSet<>();
+        for (Map.Entry<T, NodeEntry<T>> entry : locked) {
+          NodeEntry<T> value = entry.getValue();
+          if (!value.removed) {
+            nodes.add(entry.getKey());
+            rows.add(Arrays.asList(Arrays.copyOf(value.edges, value.size)));
+            live.add(entry.getKey());
+          }
+        }
+        for (List<Edge<T>> row : rows) {
+          for (Edge<T> edge : row) {
+            complete &= live.contains(edge.getDestination());
+          }
+        }
+      } finally {
+        for (int i = stamps.length - 1; i >= 0; i--) {
+          locked.get(i).getValue().lock.unlockRead(stamps[i]);
+        }
+      }
+      if (complete) {
+        return CsrGraph.freeze(nodes.toArray(), rows, null);
+      }
+    }
+  }
+
+  // Vyn är svagt konsistent: den kastar aldrig ConcurrentModificationException men
+  // behöver inte visa ändringar som görs under iterationen
+  @Override
+  public Set<T> getNodes() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  // En ögonblicksbild av bågarna
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    return Collections.unmodifiableList(Arrays.asList(entry(node).snapshot()));
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    NodeEntry<T> entry1 = entries.get(node1);
+    if (entry1 == null || !entries.containsKey(node2)) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+    for (Edge<T> edge : entry1.snapshot()) {
+      if (edge.getDestination().equals(node2)) {
+        return edge;
+      }
+    }
+    return null;
+  }
+
+  private Collection<Edge<T>> edgesOrEmpty(T node) {
+    NodeEntry<T> entry = entries.get(node);
+    return entry == null ? List.of() : Arrays.asList(entry.snapshot());
+  }
+
+  private boolean contains(T from, T to) {
+    return entries.containsKey(from) && entries.containsKey(to);
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    return contains(from, to) && new GraphSearch<>(this::edgesOrEmpty).depthFirst(from, to) != null;
+  }
+
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    return contains(from, to) ? new GraphSearch<>(this::edgesOrEmpty).depthFirst(from, to) : null;
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    return contains(from, to) ? new GraphSearch<>(this::edgesOrEmpty).breadthFirst(from, to) : null;
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    if (!contains(from, to)) {
+      return new PathResult<>(null, 0);
+    }
+    return new GraphSearch<>(this::edgesOrEmpty).dijkstra(from, to);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    for (Map.Entry<T, NodeEntry<T>> entry : entries.entrySet()) {
+      sb.append(entry.getKey()).append(":\n");
+      for (Edge<T> edge : entry.getValue().snapshot()) {
+        sb.append("  ").append(edge.toString()).append("\n");
+      }
+    }
+
+    return sb.toString();
+  }
+}
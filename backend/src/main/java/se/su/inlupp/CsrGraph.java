@@ -0,0 +1,548 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Oföränderlig graf i CSR-format (compressed sparse row). Bågarna från nod i ligger på
+// index offsets[i] till offsets[i + 1] i de parallella arrayerna targets, weights och names,
+// sorterade på målnodens id. Bågnamnen lagras en gång var i en namntabell.
+// Bågnamnet är förbindelsens transportsätt; sökningar med ModeFilter använder bara de
+// tillåtna, och modeMasks låter dem hoppa över noder som saknar tillåtna bågar.
+// Grafen kan delas mellan trådar; varje tråd får egna arbetsarrayer för sökningarna.
+// Positioner följer med om grafen frystes från en SpatialGraph eller lästes från binärfil.
+public final class CsrGraph<T> implements Graph<T> {
+  private static final int[] NO_GOALS = new int[0];
+
+  private final Map<T, Integer> ids;
+  private final Object[] nodes;
+  final int[] offsets;
+  final int[] targets;
+  final int[] weights;
+  final int[] names;
+  final String[] nameTable;
+  final long[] modeMasks; // per nod: bit names[edge] % 64 satt för varje båge från noden
+  final double[] xs; // null om grafen saknar positioner, NaN för en nod utan position
+  final double[] ys;
+  private final ThreadLocal<SearchState> states = ThreadLocal.withInitial(SearchState::new);
+
+  CsrGraph(Object[] nodes, int[] offsets, int[] targets, int[] weights, int[] names, String[] nameTable) {
+    this(nodes, offsets, targets, weights, names, nameTable, null, null);
+  }
+
+  CsrGraph(Object[] nodes, int[] offsets, int[] targets, int[] weights, int[] names, String[] nameTable,
+      double[] xs, double[] ys) {
+    this.nodes = nodes;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.names = names;
+    this.nameTable = nameTable;
+    this.xs = xs;
+    this.ys = ys;
+    this.modeMasks = new long[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+        modeMasks[i] |= 1L << names[edge];
+      }
+    }
+    this.ids = new HashMap<>(nodes.length * 2);
+    for (int i = 0; i < nodes.length; i++) {
+      ids.put(nodeAt(i), i);
+    }
+  }
+
+  // Skapar en fryst kopia av en godtycklig graf. En ConcurrentGraph eller VersionedGraph
+  // kopieras vid ett och samma ögonblick; andra grafer får inte ändras medan de fryses.
+  public static <T> CsrGraph<T> freeze(Graph<T> graph) {
+    if (graph instanceof ConcurrentGraph<T> concurrent) {
+      return concurrent.freeze();
+    }
+    if (graph instanceof VersionedGraph<T> versioned) {
+      graph = versioned.snapshot();
+    }
+    Object[] nodes = graph.getNodes().toArray();
+    List<Collection<Edge<T>>> rows = new ArrayList<>(nodes.length);
+    for (Object node : nodes) {
+      @SuppressWarnings("unchecked")
+      T typed = (T) node;
+      rows.add(graph.getEdgesFrom(typed));
+    }
+    return freeze(nodes, rows, graph instanceof SpatialGraph<T> spatial ? spatial : null);
+  }
+
+  // Bygger grafen av nodernas bågar, rows.get(i) för nodes[i]. Varje båges mål måste finnas
+  // bland noderna. spatial ger positionerna, eller null.
+  static <T> CsrGraph<T> freeze(Object[] nodes, List<? extends Collection<Edge<T>>> rows, SpatialGraph<T> spatial) {
+    Map<T, Integer> ids = new HashMap<>(nodes.length * 2);
+    for (int i = 0; i < nodes.length; i++) {
+      @SuppressWarnings("unchecked")
+      T node = (T) nodes[i];
+      ids.put(node, i);
+    }
+
+    int[] offsets = new int[nodes.length + 1];
+    for (int i = 0; i < nodes.length; i++) {
+      offsets[i + 1] = offsets[i] + rows.get(i).size();
+    }
+
+    int[] targets = new int[offsets[nodes.length]];
+    int[] weights = new int[targets.length];
+    int[] names = new int[targets.length];
+    Map<String, Integer> nameIds = new HashMap<>();
+    List<String> nameTable = new ArrayList<>();
+    for (int i = 0; i < nodes.length; i++) {
+      int position = offsets[i];
+      for (Edge<T> edge : rows.get(i)) {
+        targets[position] = ids.get(edge.getDestination());
+        weights[position] = edge.getWeight();
+        names[position] = nameIds.computeIfAbsent(edge.getName(), name -> {
+          nameTable.add(name);
+          return nameTable.size() - 1;
+        });
+        position++;
+      }
+      sortRow(offsets[i], offsets[i + 1], targets, weights, names);
+    }
+
+    double[] xs = null;
+    double[] ys = null;
+    if (spatial != null) {
+      xs = new double[nodes.length];
+      ys = new double[nodes.length];
+      for (int i = 0; i < nodes.length; i++) {
+        @SuppressWarnings("unchecked")
+        T node = (T) nodes[i];
+        boolean positioned = spatial.hasPosition(node);
+        xs[i] = positioned ? spatial.getX(node) : Double.NaN;
+        ys[i] = positioned ? spatial.getY(node) : Double.NaN;
+      }
+    }
+
+    return new CsrGraph<>(nodes, offsets, targets, weights, names, nameTable.toArray(new String[0]), xs, ys);
+  }
+
+  // Sorterar en rad på målnod så att getEdgeBetween kan binärsöka
+  static void sortRow(int from, int to, int[] targets, int[] weights, int[] names) {
+    for (int i = from + 1; i < to; i++) {
+      if (targets[i - 1] <= targets[i]) {
+        continue;
+      }
+      long[] keys = new long[to - from];
+      for (int j = from; j < to; j++) {
+        keys[j - from] = (long) targets[j] << 32 | (j - from);
+      }
+      Arrays.sort(keys);
+      int[] oldWeights = Arrays.copyOfRange(weights, from, to);
+      int[] oldNames = Arrays.copyOfRange(names, from, to);
+      for (int j = 0; j < keys.length; j++) {
+        int original = (int) keys[j];
+        targets[from + j] = (int) (keys[j] >>> 32);
+        weights[from + j] = oldWeights[original];
+        names[from + j] = oldNames[original];
+      }
+      return;
+    }
+  }
+
+  public int nodeCount() {
+    return nodes.length;
+  }
+
+  public int edgeCount() {
+    return targets.length;
+  }
+
+  // Nodens id i grafen, -1 om den inte finns
+  public int indexOf(T node) {
+    Integer id = ids.get(node);
+    return id == null ? -1 : id;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T nodeAt(int id) {
+    return (T) nodes[id];
+  }
+
+  // Alla transportsätt (bågnamn) i grafen
+  public Set<String> getModes() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(nameTable)));
+  }
+
+  public boolean hasPosition(T node) {
+    Integer id = ids.get(node);
+    return id != null && xs != null && !Double.isNaN(xs[id]);
+  }
+
+  public double getX(T node) {
+    return xs[positionedId(node)];
+  }
+
+  public double getY(T node) {
+    return ys[positionedId(node)];
+  }
+
+  private int positionedId(T node) {
+    int id = requireId(node);
+    if (xs == null || Double.isNaN(xs[id])) {
+      throw new NoSuchElementException("Noden saknar position.");
+    }
+    return id;
+  }
+
+  String nameAt(int edge) {
+    return nameTable[names[edge]];
+  }
+
+  Edge<T> edgeAt(int edge) {
+    return new Edge<>(nodeAt(targets[edge]), nameTable[names[edge]], weights[edge], targets[edge]);
+  }
+
+  private int requireId(T node) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    return id;
+  }
+
+  private static UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException("Grafen är fryst och kan inte ändras.");
+  }
+
+  @Override
+  public void add(T node) {
+    throw frozen();
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    throw frozen();
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    throw frozen();
+  }
+
+  @Override
+  public void disconnect(T node1, T node2) {
+    throw frozen();
+  }
+
+  @Override
+  public void remove(T node) {
+    throw frozen();
+  }
+
+  @Override
+  public Set<T> getNodes() {
+    return Collections.unmodifiableSet(ids.keySet());
+  }
+
+  // Bågarna skapas vid anropet; att ändra vikten på dem påverkar inte grafen
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    int id = requireId(node);
+    List<Edge<T>> edges = new ArrayList<>(offsets[id + 1] - offsets[id]);
+    for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+      edges.add(edgeAt(edge));
+    }
+    return edges;
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    int id1 = requireId(node1);
+    int id2 = requireId(node2);
+    int edge = findEdge(id1, id2);
+    return edge < 0 ? null : edgeAt(edge);
+  }
+
+  // Index för bågen från id1 till id2, -1 om den saknas
+  int findEdge(int id1, int id2) {
+    int index = Arrays.binarySearch(targets, offsets[id1], offsets[id1 + 1], id2);
+    return index < 0 ? -1 : index;
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return false;
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    boolean found = depthFirst(states.get(), source, target);
+    event.report("dfs", this, nodes.length, from, to, -1, found, null);
+    return found;
+  }
+
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return null;
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    SearchState s = states.get();
+    List<Edge<T>> path = depthFirst(s, source, target) ? buildPath(s, target) : null;
+    event.report("dfs", this, nodes.length, from, to, -1, path);
+    return path;
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return null;
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    SearchState s = states.get();
+    List<Edge<T>> path = breadthFirst(s, source, target, null) ? buildPath(s, target) : null;
+    event.report("bfs", this, nodes.length, from, to, -1, path);
+    return path;
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return new PathResult<>(null, 0);
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    SearchState s = states.get();
+    int expanded = dijkstra(s, source, target);
+    List<Edge<T>> path = pathTo(s, target);
+    event.report("dijkstra", this, nodes.length, from, to, expanded, path);
+    return new PathResult<>(path, expanded);
+  }
+
+  // Som pathExists men bara längs bågar vars transportsätt filter tillåter
+  public boolean pathExists(T from, T to, ModeFilter filter) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return false;
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    boolean found = breadthFirst(states.get(), source, target, filter.resolve(nameTable));
+    event.report("bfs", this, nodes.length, from, to, -1, found, null);
+    return found;
+  }
+
+  public List<Edge<T>> getFewestHopsPath(T from, T to, ModeFilter filter) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return null;
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    SearchState s = states.get();
+    List<Edge<T>> path = breadthFirst(s, source, target, filter.resolve(nameTable)) ? buildPath(s, target) : null;
+    event.report("bfs", this, nodes.length, from, to, -1, path);
+    return path;
+  }
+
+  public List<Edge<T>> getShortestPath(T from, T to, ModeFilter filter) {
+    return findShortestPath(from, to, filter).getEdges();
+  }
+
+  public PathResult<T> findShortestPath(T from, T to, ModeFilter filter) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return new PathResult<>(null, 0);
+    }
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    SearchState s = states.get();
+    int expanded = dijkstra(s, source, new int[] {target}, filter.resolve(nameTable));
+    List<Edge<T>> path = pathTo(s, target);
+    event.report("dijkstra", this, nodes.length, from, to, expanded, path);
+    return new PathResult<>(path, expanded);
+  }
+
+  // Sant om bågens transportsätt finns i allowed; null tillåter alla
+  private boolean permitted(long[] allowed, int edge) {
+    int mode = names[edge];
+    return allowed == null || (allowed[mode >>> 6] & 1L << mode) != 0;
+  }
+
+  // Bitarna i allowed vikta till 64, samma form som modeMasks
+  private static long folded(long[] allowed) {
+    if (allowed == null) {
+      return -1L;
+    }
+    long mask = 0;
+    for (long word : allowed) {
+      mask |= word;
+    }
+    return mask;
+  }
+
+  // Djupetförst sökning (DFS) med explicit stack, cursor håller nästa bågindex
+  private boolean depthFirst(SearchState s, int source, int target) {
+    s.begin(nodes.length);
+    s.reach(source, 0, -1, -1);
+    s.stack[0] = source;
+    s.cursor[0] = offsets[source];
+    int top = 1;
+
+    while (top > 0) {
+      int current = s.stack[top - 1];
+      if (current == target) {
+        return true;
+      }
+
+      int edge = s.cursor[top - 1];
+      int end = offsets[current + 1];
+      while (edge < end && s.reached(targets[edge])) {
+        edge++;
+      }
+      if (edge == end) {
+        top--; // backtracka
+        continue;
+      }
+
+      s.cursor[top - 1] = edge + 1;
+      int neighbor = targets[edge];
+      s.reach(neighbor, top, current, edge);
+      s.stack[top] = neighbor;
+      s.cursor[top] = offsets[neighbor];
+      top++;
+    }
+
+    return false;
+  }
+
+  // Breddenförst sökning (BFS), ger vägen med minst antal bågar. allowed som i dijkstra.
+  private boolean breadthFirst(SearchState s, int source, int target, long[] allowed) {
+    long modes = folded(allowed);
+    s.begin(nodes.length);
+    s.reach(source, 0, -1, -1);
+    s.stack[0] = source;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail) {
+      int current = s.stack[head++];
+      if (current == target) {
+        return true;
+      }
+      if ((modeMasks[current] & modes) == 0) {
+        continue; // inga tillåtna bågar från noden
+      }
+      for (int edge = offsets[current], end = offsets[current + 1]; edge < end; edge++) {
+        int neighbor = targets[edge];
+        if (!s.reached(neighbor) && permitted(allowed, edge)) {
+          s.reach(neighbor, s.dist[current] + 1, current, edge);
+          s.stack[tail++] = neighbor;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  // Dijkstra med radix heap. Med target -1 söks hela grafen igenom. Returnerar antal expanderade noder.
+  int dijkstra(SearchState s, int source, int target) {
+    return dijkstra(s, source, target < 0 ? NO_GOALS : new int[] {target});
+  }
+
+  // Dijkstra som avbryts först när alla mål har tagits ut ur kön, så att en sökning kan svara
+  // för flera mål. goals måste vara sorterad; utan mål söks hela grafen igenom.
+  int dijkstra(SearchState s, int source, int[] goals) {
+    return dijkstra(s, source, goals, null);
+  }
+
+  // allowed är tillåtna transportsätt från ModeFilter.resolve, null om alla är tillåtna
+  int dijkstra(SearchState s, int source, int[] goals, long[] allowed) {
+    long modes = folded(allowed);
+    s.begin(nodes.length);
+    s.reach(source, 0, -1, -1);
+    s.heap.push(0, source);
+    int expanded = 0;
+    int remaining = 0;
+    for (int i = 0; i < goals.length; i++) {
+      if (i == 0 || goals[i] != goals[i - 1]) {
+        remaining++;
+      }
+    }
+
+    while (!s.heap.isEmpty()) {
+      int current = s.heap.pop();
+      if (s.isClosed(current)) {
+        continue; // inaktuell post
+      }
+      s.close(current);
+      if (Arrays.binarySearch(goals, current) >= 0 && --remaining == 0) {
+        return expanded;
+      }
+      expanded++;
+      if ((modeMasks[current] & modes) == 0) {
+        continue;
+      }
+
+      long distance = s.dist[current];
+      for (int edge = offsets[current], end = offsets[current + 1]; edge < end; edge++) {
+        if (!permitted(allowed, edge)) {
+          continue;
+        }
+        int neighbor = targets[edge];
+        long candidate = distance + weights[edge];
+        if (!s.reached(neighbor) || (candidate < s.dist[neighbor] && !s.isClosed(neighbor))) {
+          s.reach(neighbor, candidate, current, edge);
+          s.heap.push(candidate, neighbor);
+        }
+      }
+    }
+
+    return expanded;
+  }
+
+  // Vägen till target efter en sökning med s, null om target inte nåddes
+  List<Edge<T>> pathTo(SearchState s, int target) {
+    return s.reached(target) && s.isClosed(target) ? buildPath(s, target) : null;
+  }
+
+  // Den aktuella trådens arbetsarrayer
+  SearchState state() {
+    return states.get();
+  }
+
+  private List<Edge<T>> buildPath(SearchState s, int target) {
+    List<Edge<T>> path = new ArrayList<>();
+    for (int current = target; s.parent[current] >= 0; current = s.parent[current]) {
+      path.add(edgeAt(s.parentEdge[current]));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    for (int id = 0; id < nodes.length; id++) {
+      sb.append(nodes[id]).append(":\n");
+      for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+        sb.append("  ").append(edgeAt(edge)).append("\n");
+      }
+    }
+
+    return sb.toString();
+  }
+}
@@ -0,0 +1,251 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Kortaste avstånd mellan alla par av noder. En Dijkstra-sökning körs från varje nod, parallellt
+// i en fork-join-pool, och varje sökning skriver en egen rad i matrisen. Avstånden lagras som
+// int, UNREACHABLE om målet inte kan nås. Med föregångare sparas även noden före målet på den
+// kortaste vägen, så att vägen kan byggas upp igen.
+//
+// Minnet är förutsägbart: estimateBytes ger storleken innan något räknas ut. 20 000 noder tar
+// 1,6 GB för avstånden och lika mycket till för föregångarna.
+public final class DistanceMatrix<T> {
+  public static final int UNREACHABLE = -1;
+  static final int MAGIC = 0x54414d44; // "DMAT"
+  static final int VERSION = 1;
+  static final int PREDECESSORS = 1;
+  private static final int TASKS_PER_THREAD = 4; // fler block än trådar jämnar ut olika långa sökningar
+
+  private final Object[] nodes;
+  private final Map<T, Integer> ids;
+  private final int[][] distances;
+  private final int[][] predecessors; // null om de inte räknades ut
+
+  private DistanceMatrix(Object[] nodes, int[][] distances, int[][] predecessors) {
+    this.nodes = nodes;
+    this.distances = distances;
+    this.predecessors = predecessors;
+    this.ids = new HashMap<>(nodes.length * 2);
+    for (int i = 0; i < nodes.length; i++) {
+      ids.put(nodeAt(i), i);
+    }
+  }
+
+  // Ungefärligt minnesbehov i byte för en matris med så många noder
+  public static long estimateBytes(int nodeCount, boolean withPredecessors) {
+    long row = 16 + 4L * nodeCount; // arrayhuvud och värden
+    long matrix = nodeCount * (row + 4) + 16;
+    return withPredecessors ? 2 * matrix : matrix;
+  }
+
+  public static <T> DistanceMatrix<T> compute(Graph<T> graph, boolean withPredecessors) {
+    return compute(graph, withPredecessors, ForkJoinPool.commonPool());
+  }
+
+  public static <T> DistanceMatrix<T> compute(Graph<T> graph, boolean withPredecessors, ForkJoinPool pool) {
+    CsrGraph<T> csr = graph instanceof CsrGraph<T> frozen ? frozen : CsrGraph.freeze(graph);
+    int n = csr.nodeCount();
+    int[][] distances = new int[n][];
+    int[][] predecessors = withPredecessors ? new int[n][] : null;
+    // Varje deluppgift tar ett block av startnoder och har ett eget söktillstånd, som släpps
+    // när blocket är klart i stället för att ligga kvar i poolens trådar
+    int tasks = Math.min(n, pool.getParallelism() * TASKS_PER_THREAD);
+    pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(task -> {
+      SearchState s = new SearchState();
+      for (int source = (int) ((long) n * task / tasks), end = (int) ((long) n * (task + 1) / tasks);
+          source < end; source++) {
+        csr.dijkstra(s, source, -1);
+        int[] row = new int[n];
+        int[] parents = withPredecessors ? new int[n] : null;
+        for (int node = 0; node < n; node++) {
+          boolean reached = s.reached(node);
+          if (reached && s.dist[node] > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Avståndet får inte plats i en int.");
+          }
+          row[node] = reached ? (int) s.dist[node] : UNREACHABLE;
+          if (parents != null) {
+            parents[node] = reached ? s.parent[node] : -1;
+          }
+        }
+        distances[source] = row;
+        if (predecessors != null) {
+          predecessors[source] = parents;
+        }
+      }
+    })).join();
+
+    Object[] nodes = new Object[n];
+    for (int i = 0; i < n; i++) {
+      nodes[i] = csr.nodeAt(i);
+    }
+    return new DistanceMatrix<>(nodes, distances, predecessors);
+  }
+
+  public int size() {
+    return nodes.length;
+  }
+
+  // Nodens index i matrisen, -1 om den inte finns
+  public int indexOf(T node) {
+    Integer id = ids.get(node);
+    return id == null ? -1 : id;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T nodeAt(int index) {
+    return (T) nodes[index];
+  }
+
+  public boolean hasPredecessors() {
+    return predecessors != null;
+  }
+
+  public int distance(int from, int to) {
+    return distances[from][to];
+  }
+
+  // Avståndet mellan noderna, UNREACHABLE om det inte finns någon väg
+  public int distance(T from, T to) {
+    return distances[requireIndex(from)][requireIndex(to)];
+  }
+
+  // Noderna på den kortaste vägen, från och med from till och med to, null om vägen saknas
+  public List<T> getPath(T from, T to) {
+    if (predecessors == null) {
+      throw new IllegalStateException("Matrisen saknar föregångare.");
+    }
+    int source = requireIndex(from);
+    int target = requireIndex(to);
+    if (distances[source][target] == UNREACHABLE) {
+      return null;
+    }
+    List<T> path = new ArrayList<>();
+    for (int current = target; current != source; current = predecessors[source][current]) {
+      path.add(nodeAt(current));
+    }
+    path.add(from);
+    Collections.reverse(path);
+    return path;
+  }
+
+  private int requireIndex(T node) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    return id;
+  }
+
+  // Skriver matrisen med nodernas namn som text (String.valueOf). Filen läses med read.
+  // Format, little endian: magi, version, flaggor, antal noder, namnens byteposition och
+  // UTF-8-data, och därefter avstånden och eventuellt föregångarna rad för rad.
+  public void write(Path file) throws IOException {
+    byte[][] names = new byte[nodes.length][];
+    int[] offsets = new int[nodes.length + 1];
+    for (int i = 0; i < nodes.length; i++) {
+      names[i] = String.valueOf(nodes[i]).getBytes(StandardCharsets.UTF_8);
+      offsets[i + 1] = Math.addExact(offsets[i], names[i].length);
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      GraphBinary.Output out = new GraphBinary.Output(channel);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(predecessors != null ? PREDECESSORS : 0);
+      out.putInt(nodes.length);
+      out.putInts(offsets);
+      for (byte[] name : names) {
+        out.putBytes(name);
+      }
+      out.align();
+      for (int[] row : distances) {
+        out.putInts(row);
+      }
+      if (predecessors != null) {
+        for (int[] row : predecessors) {
+          out.putInts(row);
+        }
+      }
+      out.flush();
+    }
+  }
+
+  public static DistanceMatrix<String> read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = readFully(channel, 16);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Filen är inte en avståndsmatris.");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Okänd version av avståndsmatrisen: " + version);
+      }
+      int flags = header.getInt();
+      int n = header.getInt();
+      long rowBytes = 4L * n;
+      long required = 16 + 4L * (n + 1) + rowBytes * n * ((flags & PREDECESSORS) != 0 ? 2 : 1);
+      if (n < 0 || required > channel.size()) {
+        throw new IOException("Filen är för kort.");
+      }
+
+      int[] offsets = new int[n + 1];
+      readFully(channel, 4 * (n + 1)).asIntBuffer().get(offsets);
+      channel.position((channel.position() + 7) & ~7);
+      if (offsets[0] != 0 || offsets[n] < 0 || offsets[n] > channel.size()) {
+        throw new IOException("Filen har en ogiltig namntabell.");
+      }
+      byte[] data = new byte[offsets[n]];
+      readFully(channel, data.length).get(data);
+      channel.position((channel.position() + 7) & ~7);
+      Object[] nodes = new Object[n];
+      for (int i = 0; i < n; i++) {
+        if (offsets[i + 1] < offsets[i] || offsets[i + 1] > data.length) {
+          throw new IOException("Filen har en ogiltig namntabell.");
+        }
+        nodes[i] = new String(data, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+      }
+
+      int[][] distances = readRows(channel, n);
+      int[][] predecessors = (flags & PREDECESSORS) != 0 ? readRows(channel, n) : null;
+      return new DistanceMatrix<>(nodes, distances, predecessors);
+    }
+  }
+
+  private static int[][] readRows(FileChannel channel, int n) throws IOException {
+    int[][] rows = new int[n][n];
+    ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(4 * n, 8)).order(ByteOrder.LITTLE_ENDIAN);
+    for (int[] row : rows) {
+      buffer.clear().limit(4 * n);
+      fill(channel, buffer);
+      buffer.flip();
+      buffer.asIntBuffer().get(row);
+      // Raderna skrevs utfyllda till en jämn åttabytesgräns
+      channel.position((channel.position() + 7) & ~7);
+    }
+    return rows;
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, int bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    fill(channel, buffer);
+    return buffer.flip();
+  }
+
+  private static void fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Filen är för kort.");
+      }
+    }
+  }
+}
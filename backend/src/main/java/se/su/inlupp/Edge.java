@@ -4,14 +4,20 @@ public class Edge<N> {
   private final N destination;
   private final String name;
   private int weight;
+  final int destinationId; // nodens id i grafen som skapade bågen, -1 annars
 
   public Edge(N destination, String name, int weight) {
+    this(destination, name, weight, -1);
+  }
+
+  Edge(N destination, String name, int weight, int destinationId) {
     if (weight < 0) {
       throw new IllegalArgumentException("Vikten får inte vara negativ");
     }
     this.destination = destination;
     this.name = name;
     this.weight = weight;
+    this.destinationId = destinationId;
   }
 
   public N getDestination() {
@@ -0,0 +1,90 @@
+package se.su.inlupp;
+
+// Öppen adressering (linjär sondering) från grannens id till bågens plats i nodens båglista.
+// Används bara för noder med många bågar; små listor går snabbare att söka igenom direkt.
+final class EdgeIndex {
+  static final int THRESHOLD = 8;
+
+  private int[] keys;  // grannens id + 1, 0 betyder tom plats
+  private int[] slots;
+  private int size;
+
+  EdgeIndex(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) * 2;
+    keys = new int[capacity];
+    slots = new int[capacity];
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  // Platsen för bågen till grannen, -1 om den saknas
+  int get(int neighbor) {
+    int key = neighbor + 1;
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return slots[i];
+      }
+    }
+    return -1;
+  }
+
+  void put(int neighbor, int slot) {
+    if ((size + 1) * 4 > keys.length * 3) {
+      resize(keys.length * 2);
+    }
+    int key = neighbor + 1;
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    while (keys[i] != 0) {
+      if (keys[i] == key) {
+        slots[i] = slot;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    slots[i] = slot;
+    size++;
+  }
+
+  void remove(int neighbor) {
+    int key = neighbor + 1;
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    while (keys[i] != key) {
+      if (keys[i] == 0) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    // Flytta bakåt efterföljande poster så att sonderingskedjorna hålls obrutna
+    int hole = i;
+    for (int j = (hole + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+      int home = hash(keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - hole) & mask)) {
+        keys[hole] = keys[j];
+        slots[hole] = slots[j];
+        hole = j;
+      }
+    }
+    keys[hole] = 0;
+    size--;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldSlots = slots;
+    keys = new int[capacity];
+    slots = new int[capacity];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        put(oldKeys[i] - 1, oldSlots[i]);
+      }
+    }
+  }
+}
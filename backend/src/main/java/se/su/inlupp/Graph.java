@@ -1,8 +1,11 @@
 package se.su.inlupp;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface Graph<T> {
 
@@ -12,17 +15,71 @@ public interface Graph<T> {
 
   void setConnectionWeight(T node1, T node2, int weight);
 
+  // Samlingarna från getNodes och getEdgesFrom kan inte ändras och kan vara vyer som följer
+  // grafen. Kopiera dem om grafen ska ändras medan de används.
   Set<T> getNodes();
 
   Collection<Edge<T>> getEdgesFrom(T node);
 
+  default void forEachNode(Consumer<? super T> action) {
+    getNodes().forEach(action);
+  }
+
+  // Besöker varje båge en gång per riktning, med noden den utgår från
+  default void forEachEdge(BiConsumer<? super T, ? super Edge<T>> action) {
+    for (T node : getNodes()) {
+      for (Edge<T> edge : getEdgesFrom(node)) {
+        action.accept(node, edge);
+      }
+    }
+  }
+
   Edge<T> getEdgeBetween(T node1, T node2);
 
   void disconnect(T node1, T node2);
 
   void remove(T node);
 
+  // Tar bort alla noderna och deras förbindelser, kastar NoSuchElementException om någon saknas
+  default void removeAll(Collection<? extends T> nodes) {
+    for (T node : nodes) {
+      remove(node);
+    }
+  }
+
   boolean pathExists(T from, T to);
 
   List<Edge<T>> getPath(T from, T to);
+
+  // Den väg som har minst antal bågar, null om ingen väg finns
+  List<Edge<T>> getFewestHopsPath(T from, T to);
+
+  // Den väg som har lägst total vikt, null om ingen väg finns
+  List<Edge<T>> getShortestPath(T from, T to);
+
+  // De högst k kortaste vägarna utan upprepade noder, ordnade efter total vikt. Tom om
+  // ingen väg finns.
+  default List<List<Edge<T>>> getShortestPaths(T from, T to, int k) {
+    return KShortestPaths.find(from, to, k, (spur, target, bannedNodes, bannedNeighbors) -> {
+      if (!getNodes().contains(spur) || !getNodes().contains(target)) {
+        return null;
+      }
+      return new GraphSearch<T>(node -> {
+        List<Edge<T>> allowed = new ArrayList<>();
+        for (Edge<T> edge : getEdgesFrom(node)) {
+          T destination = edge.getDestination();
+          if (!bannedNodes.contains(destination)
+              && !(node.equals(spur) && bannedNeighbors.contains(destination))) {
+            allowed.add(edge);
+          }
+        }
+        return allowed;
+      }).dijkstra(spur, target).getEdges();
+    });
+  }
+
+  // Som getShortestPath men med statistik om sökningen
+  default PathResult<T> findShortestPath(T from, T to) {
+    return new PathResult<>(getShortestPath(from, to), -1);
+  }
 }
@@ -0,0 +1,396 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binärt grafformat som läses med en minnesmappad kanal direkt in i en CsrGraph, utan tolkning
+// av text. Allt är little endian och varje sektion börjar på en jämn åttabytesgräns:
+//   huvud:     magi, version, flaggor, antal noder, bågar och strängar, strängdatans längd, bildens sträng-id
+//   strängar:  int[strängar + 1] med byteposition i strängdatan, därefter strängdatan i UTF-8
+//   noder:     int[noder] med sträng-id för nodens namn
+//   bågar:     offsets int[noder + 1], targets, weights och names int[bågar] som i CsrGraph
+//   positioner: double[noder] x och y, bara om flaggan POSITIONS är satt
+public final class GraphBinary {
+  public static final int VERSION = 1;
+  static final int MAGIC = 0x48505247; // "GRPH"
+  static final int POSITIONS = 1;
+  private static final int HEADER_BYTES = 40;
+
+  private GraphBinary() {
+  }
+
+  // Innehållet i en inläst fil
+  public static final class Contents {
+    private final String imagePath;
+    private final CsrGraph<String> graph;
+
+    Contents(String imagePath, CsrGraph<String> graph) {
+      this.imagePath = imagePath;
+      this.graph = graph;
+    }
+
+    // Sökväg till bakgrundsbilden, null om filen saknar bild
+    public String getImagePath() {
+      return imagePath;
+    }
+
+    public CsrGraph<String> getGraph() {
+      return graph;
+    }
+  }
+
+  public static Contents load(Path file) throws IOException {
+    GraphLoadEvent event = new GraphLoadEvent();
+    event.begin();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Filen är för stor för att mappas.");
+      }
+      if (size < HEADER_BYTES) {
+        throw new IOException("Filen är inte en binär graffil.");
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+      Contents contents = decode(mapped);
+      event.report(file, "binary", size, contents.getGraph().nodeCount(), contents.getGraph().edgeCount());
+      return contents;
+    } catch (IndexOutOfBoundsException | IllegalArgumentException | BufferUnderflowException e) {
+      throw new IOException("Filen är trasig: " + file, e);
+    }
+  }
+
+  private static Contents decode(ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Filen är inte en binär graffil.");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Okänd version av binärformatet: " + version);
+    }
+    int flags = buffer.getInt();
+    int nodeCount = buffer.getInt();
+    int edgeCount = buffer.getInt();
+    int stringCount = buffer.getInt();
+    long stringBytes = buffer.getLong();
+    int image = buffer.getInt();
+    if (nodeCount < 0 || edgeCount < 0 || stringCount < 0 || stringBytes < 0 || stringBytes > Integer.MAX_VALUE
+        || image < -1 || image >= stringCount) {
+      throw new IOException("Filen har ett ogiltigt huvud.");
+    }
+    // Storlekarna kontrolleras mot filen innan något allokeras
+    long required = HEADER_BYTES + 4L * (stringCount + 1) + stringBytes + 4L * (2L * nodeCount + 1) + 12L * edgeCount
+        + ((flags & POSITIONS) != 0 ? 16L * nodeCount : 0);
+    if (required > buffer.capacity()) {
+      throw new IOException("Filen är för kort.");
+    }
+    buffer.position(HEADER_BYTES);
+
+    int[] stringOffsets = ints(buffer, stringCount + 1);
+    byte[] data = new byte[(int) stringBytes];
+    buffer.get(data);
+    align(buffer);
+    String[] strings = new String[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      int from = stringOffsets[i];
+      int to = stringOffsets[i + 1];
+      if (from < 0 || to < from || to > data.length) {
+        throw new IOException("Filen har en ogiltig strängtabell.");
+      }
+      strings[i] = new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    int[] nodeNames = ints(buffer, nodeCount);
+    int[] offsets = ints(buffer, nodeCount + 1);
+    int[] targets = ints(buffer, edgeCount);
+    int[] weights = ints(buffer, edgeCount);
+    int[] names = ints(buffer, edgeCount);
+    double[] xs = null;
+    double[] ys = null;
+    if ((flags & POSITIONS) != 0) {
+      xs = doubles(buffer, nodeCount);
+      ys = doubles(buffer, nodeCount);
+    }
+
+    Object[] nodes = new Object[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      nodes[i] = strings[checkIndex(nodeNames[i], stringCount)];
+    }
+    validate(offsets, targets, weights, names, nodeCount, stringCount);
+
+    CsrGraph<String> graph = new CsrGraph<>(nodes, offsets, targets, weights, names, strings, xs, ys);
+    if (graph.getNodes().size() != nodeCount) {
+      throw new IOException("Filen innehåller samma nod flera gånger.");
+    }
+    return new Contents(image < 0 ? null : strings[image], graph);
+  }
+
+  // Kontrollerar att raderna är hela och pekar in i grafen; rader som inte är sorterade sorteras
+  private static void validate(int[] offsets, int[] targets, int[] weights, int[] names, int nodeCount,
+      int stringCount) throws IOException {
+    if (offsets[0] != 0 || offsets[nodeCount] != targets.length) {
+      throw new IOException("Filen har ogiltiga bågar.");
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      int from = offsets[node];
+      int to = offsets[node + 1];
+      if (to < from) {
+        throw new IOException("Filen har ogiltiga bågar.");
+      }
+      boolean sorted = true;
+      for (int edge = from; edge < to; edge++) {
+        checkIndex(targets[edge], nodeCount);
+        checkIndex(names[edge], stringCount);
+        if (weights[edge] < 0) {
+          throw new IOException("Filen har en negativ vikt.");
+        }
+        sorted &= edge == from || targets[edge - 1] <= targets[edge];
+      }
+      if (!sorted) {
+        CsrGraph.sortRow(from, to, targets, weights, names);
+      }
+    }
+  }
+
+  private static int checkIndex(int index, int count) throws IOException {
+    if (index < 0 || index >= count) {
+      throw new IOException("Filen har ett ogiltigt index: " + index);
+    }
+    return index;
+  }
+
+  private static int[] ints(ByteBuffer buffer, int count) {
+    int[] values = new int[count];
+    buffer.asIntBuffer().get(values);
+    buffer.position(buffer.position() + count * Integer.BYTES);
+    align(buffer);
+    return values;
+  }
+
+  private static double[] doubles(ByteBuffer buffer, int count) {
+    double[] values = new double[count];
+    buffer.asDoubleBuffer().get(values);
+    buffer.position(buffer.position() + count * Double.BYTES);
+    return values;
+  }
+
+  private static void align(ByteBuffer buffer) {
+    buffer.position((buffer.position() + 7) & ~7);
+  }
+
+  // Skriver grafen; en graf som inte redan är fryst fryses först
+  public static void write(Path file, String imagePath, Graph<String> graph) throws IOException {
+    GraphSaveEvent event = new GraphSaveEvent();
+    event.begin();
+    CsrGraph<String> csr = graph instanceof CsrGraph<String> frozen ? frozen : CsrGraph.freeze(graph);
+
+    // Bågnamnen behåller sina id, nodnamn och bildens sökväg läggs efter
+    Map<String, Integer> ids = new HashMap<>();
+    String[] strings = new String[csr.nameTable.length + csr.nodeCount() + 1];
+    int stringCount = 0;
+    for (String name : csr.nameTable) {
+      ids.put(name, stringCount);
+      strings[stringCount++] = name;
+    }
+    int[] nodeNames = new int[csr.nodeCount()];
+    for (int i = 0; i < nodeNames.length; i++) {
+      String name = csr.nodeAt(i);
+      Integer id = ids.putIfAbsent(name, stringCount);
+      if (id == null) {
+        id = stringCount;
+        strings[stringCount++] = name;
+      }
+      nodeNames[i] = id;
+    }
+    int image = -1;
+    if (imagePath != null) {
+      Integer id = ids.putIfAbsent(imagePath, stringCount);
+      if (id == null) {
+        id = stringCount;
+        strings[stringCount++] = imagePath;
+      }
+      image = id;
+    }
+
+    byte[][] encoded = new byte[stringCount][];
+    int[] stringOffsets = new int[stringCount + 1];
+    long stringBytes = 0;
+    for (int i = 0; i < stringCount; i++) {
+      encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+      stringBytes += encoded[i].length;
+      if (stringBytes > Integer.MAX_VALUE) {
+        throw new IOException("Strängtabellen är för stor.");
+      }
+      stringOffsets[i + 1] = (int) stringBytes;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Output out = new Output(channel);
+      out.putInt(MAGIC);
+      out.putInt(VERSION);
+      out.putInt(csr.xs != null ? POSITIONS : 0);
+      out.putInt(csr.nodeCount());
+      out.putInt(csr.edgeCount());
+      out.putInt(stringCount);
+      out.putLong(stringBytes);
+      out.putInt(image);
+      out.align();
+
+      out.putInts(stringOffsets);
+      for (int i = 0; i < stringCount; i++) {
+        out.putBytes(encoded[i]);
+      }
+      out.align();
+      out.putInts(nodeNames);
+      out.putInts(csr.offsets);
+      out.putInts(csr.targets);
+      out.putInts(csr.weights);
+      out.putInts(csr.names);
+      if (csr.xs != null) {
+        out.putDoubles(csr.xs);
+        out.putDoubles(csr.ys);
+      }
+      out.flush();
+      event.report(file, "binary", out.position(), csr.nodeCount(), csr.edgeCount());
+    }
+  }
+
+  // Konverterar en textfil till binärformatet. Förbindelser som står åt båda hållen i
+  // textfilen blir en förbindelse, precis som när GUI:t öppnar filen.
+  public static void textToBinary(Path text, Path binary) throws IOException {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    String imagePath = GraphIO.read(text, graph);
+    write(binary, imagePath, graph);
+  }
+
+  // Konverterar en binärfil till textformatet som GUI:t läser
+  public static void binaryToText(Path binary, Path text) throws IOException {
+    Contents contents = load(binary);
+    CsrGraph<String> graph = contents.getGraph();
+    try (FileChannel channel = FileChannel.open(text, StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      GraphIO.Writer writer = new GraphIO.Writer(channel);
+      writer.text(contents.getImagePath() == null ? "" : contents.getImagePath()).newLine();
+
+      for (int i = 0; i < graph.nodeCount(); i++) {
+        if (i > 0) {
+          writer.separator();
+        }
+        boolean positioned = graph.xs != null && !Double.isNaN(graph.xs[i]);
+        writer.name(graph.nodeAt(i)).separator()
+            .decimal(positioned ? graph.xs[i] : 0.0).separator()
+            .decimal(positioned ? graph.ys[i] : 0.0);
+      }
+      writer.newLine();
+
+      for (int i = 0; i < graph.nodeCount(); i++) {
+        for (int edge = graph.offsets[i]; edge < graph.offsets[i + 1]; edge++) {
+          writer.name(graph.nodeAt(i)).separator().name(graph.nodeAt(graph.targets[edge])).separator()
+              .name(graph.nameAt(edge)).separator().integer(graph.weights[edge]).newLine();
+        }
+      }
+      writer.flush();
+    }
+  }
+
+  // Buffrad skrivning i little endian
+  static final class Output {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GraphIO.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+
+    Output(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        drain();
+      }
+    }
+
+    void putInt(int value) throws IOException {
+      ensure(Integer.BYTES);
+      buffer.putInt(value);
+      position += Integer.BYTES;
+    }
+
+    void putLong(long value) throws IOException {
+      ensure(Long.BYTES);
+      buffer.putLong(value);
+      position += Long.BYTES;
+    }
+
+    void putInts(int[] values) throws IOException {
+      int done = 0;
+      while (done < values.length) {
+        ensure(Integer.BYTES);
+        int count = Math.min(values.length - done, buffer.remaining() / Integer.BYTES);
+        buffer.asIntBuffer().put(values, done, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        done += count;
+      }
+      position += (long) values.length * Integer.BYTES;
+      align();
+    }
+
+    void putDoubles(double[] values) throws IOException {
+      int done = 0;
+      while (done < values.length) {
+        ensure(Double.BYTES);
+        int count = Math.min(values.length - done, buffer.remaining() / Double.BYTES);
+        buffer.asDoubleBuffer().put(values, done, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        done += count;
+      }
+      position += (long) values.length * Double.BYTES;
+    }
+
+    void putBytes(byte[] bytes) throws IOException {
+      int done = 0;
+      while (done < bytes.length) {
+        ensure(1);
+        int count = Math.min(bytes.length - done, buffer.remaining());
+        buffer.put(bytes, done, count);
+        done += count;
+      }
+      position += bytes.length;
+    }
+
+    // Fyller ut till nästa åttabytesgräns
+    void align() throws IOException {
+      while ((position & 7) != 0) {
+        ensure(1);
+        buffer.put((byte) 0);
+        position++;
+      }
+    }
+
+    private void drain() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    void flush() throws IOException {
+      drain();
+    }
+
+    // Antal byte som har skrivits, inklusive det som ligger kvar i bufferten
+    long position() {
+      return position;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package se.su.inlupp;
+
+import jdk.jfr.*;
+
+import java.nio.file.Path;
+
+// Gemensamma fält för GraphLoadEvent och GraphSaveEvent
+@Category({"Graph", "File"})
+@StackTrace(false)
+abstract class GraphFileEvent extends Event {
+  @Label("Path")
+  String path;
+
+  @Label("Format")
+  String format;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Nodes")
+  int nodes;
+
+  @Label("Edges")
+  @Description("Edge records in the file; the binary format stores one per direction")
+  long edges;
+
+  void report(Path file, String format, long bytes, int nodes, long edges) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.path = file.toString();
+    this.format = format;
+    this.bytes = bytes;
+    this.nodes = nodes;
+    this.edges = edges;
+    commit();
+  }
+}
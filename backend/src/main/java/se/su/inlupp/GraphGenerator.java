@@ -0,0 +1,221 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+// Skapar stora grafer med känd form för tester och mätningar. Noderna heter N0, N1, ... och
+// samma frö ger alltid samma graf. degree är ungefär antalet grannar per nod.
+//
+// Alla former får positioner när grafen är en SpatialGraph: slumpade punkter för GEOMETRIC
+// och SCALE_FREE, rutorna för GRID och en slinga rad för rad för CHAIN. I GEOMETRIC är vikten
+// avståndet mellan punkterna, i övriga former ett slumptal mellan 1 och 100.
+//
+// Från kommandoraden skrivs en .graph-fil:
+//   java -cp backend/target/classes se.su.inlupp.GraphGenerator GEOMETRIC 1000000 6 42 stor.graph
+public final class GraphGenerator {
+
+  public enum Shape {
+    // Slumpade punkter där alla par närmare än en radie får en förbindelse
+    GEOMETRIC,
+    // Kvadratiskt rutnät, med diagonaler när degree är minst 8
+    GRID,
+    // Preferentiell anslutning (Barabási–Albert), ger några få noder med väldigt många grannar
+    SCALE_FREE,
+    // Kedja där varje nod har förbindelse till de degree / 2 närmaste noderna framåt
+    CHAIN
+  }
+
+  static final double SPACING = 10.0; // avstånd mellan rutorna, och punkttäthet i GEOMETRIC
+
+  private final Shape shape;
+  private final int size;
+  private final int degree;
+  private final long seed;
+
+  public GraphGenerator(Shape shape, int size, int degree, long seed) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Grafen måste ha minst en nod.");
+    }
+    if (degree < 1) {
+      throw new IllegalArgumentException("Graden måste vara minst 1.");
+    }
+    this.shape = shape;
+    this.size = size;
+    this.degree = degree;
+    this.seed = seed;
+  }
+
+  public static String name(int index) {
+    return "N" + index;
+  }
+
+  public SpatialGraph<String> generate() {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    generate(graph);
+    return graph;
+  }
+
+  // Lägger till noderna och förbindelserna i graph, som bör vara tom
+  public void generate(Graph<String> graph) {
+    Random random = new Random(seed);
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    place(random, xs, ys);
+
+    SpatialGraph<String> spatial = graph instanceof SpatialGraph<String> s ? s : null;
+    for (int i = 0; i < size; i++) {
+      if (spatial != null) {
+        spatial.add(name(i), xs[i], ys[i]);
+      } else {
+        graph.add(name(i));
+      }
+    }
+
+    switch (shape) {
+      case GEOMETRIC -> connectGeometric(graph, xs, ys);
+      case GRID -> connectGrid(graph, random);
+      case SCALE_FREE -> connectScaleFree(graph, random);
+      case CHAIN -> connectChain(graph, random);
+    }
+  }
+
+  // Skriver grafen som en .graph-fil med varje förbindelse en gång
+  public void write(Path file, String imagePath) throws IOException {
+    GraphIO.write(file, imagePath, generate(), true);
+  }
+
+  private int side() {
+    return (int) Math.ceil(Math.sqrt(size));
+  }
+
+  private void place(Random random, double[] xs, double[] ys) {
+    int side = side();
+    for (int i = 0; i < size; i++) {
+      switch (shape) {
+        case GEOMETRIC, SCALE_FREE -> {
+          xs[i] = random.nextDouble() * side * SPACING;
+          ys[i] = random.nextDouble() * side * SPACING;
+        }
+        case GRID -> {
+          xs[i] = i % side * SPACING;
+          ys[i] = i / side * SPACING;
+        }
+        case CHAIN -> {
+          // Varannan rad baklänges, så att grannar i kedjan ligger bredvid varandra
+          int row = i / side;
+          int column = row % 2 == 0 ? i % side : side - 1 - i % side;
+          xs[i] = column * SPACING;
+          ys[i] = row * SPACING;
+        }
+      }
+    }
+  }
+
+  // Punkterna sorteras in i celler med radien som sida, så att bara närliggande celler
+  // behöver jämföras. Radien väljs så att det väntade antalet grannar blir degree.
+  private void connectGeometric(Graph<String> graph, double[] xs, double[] ys) {
+    double extent = side() * SPACING;
+    double radius = Math.sqrt(degree * extent * extent / (Math.PI * size));
+    int cells = Math.max(1, (int) (extent / radius));
+    int[] cellStart = new int[cells * cells + 1];
+    int[] cellOf = new int[size];
+    for (int i = 0; i < size; i++) {
+      cellOf[i] = cell(xs[i], cells, extent) * cells + cell(ys[i], cells, extent);
+      cellStart[cellOf[i] + 1]++;
+    }
+    for (int c = 0; c < cells * cells; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    int[] members = new int[size];
+    int[] fill = Arrays.copyOf(cellStart, cells * cells);
+    for (int i = 0; i < size; i++) {
+      members[fill[cellOf[i]]++] = i;
+    }
+
+    for (int i = 0; i < size; i++) {
+      int cx = cellOf[i] / cells;
+      int cy = cellOf[i] % cells;
+      for (int x = Math.max(0, cx - 1); x <= Math.min(cells - 1, cx + 1); x++) {
+        for (int y = Math.max(0, cy - 1); y <= Math.min(cells - 1, cy + 1); y++) {
+          int c = x * cells + y;
+          for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+            int j = members[k];
+            double distance = Math.hypot(xs[i] - xs[j], ys[i] - ys[j]);
+            if (i < j && distance <= radius) {
+              graph.connect(name(i), name(j), "väg", Math.max(1, (int) Math.round(distance)));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static int cell(double coordinate, int cells, double extent) {
+    return Math.min(cells - 1, (int) (coordinate / extent * cells));
+  }
+
+  private void connectGrid(Graph<String> graph, Random random) {
+    int side = side();
+    for (int i = 0; i < size; i++) {
+      int column = i % side;
+      if (column + 1 < side && i + 1 < size) {
+        graph.connect(name(i), name(i + 1), "väg", weight(random));
+      }
+      if (i + side < size) {
+        graph.connect(name(i), name(i + side), "väg", weight(random));
+      }
+      if (degree >= 8) {
+        if (column + 1 < side && i + side + 1 < size) {
+          graph.connect(name(i), name(i + side + 1), "väg", weight(random));
+        }
+        if (column > 0 && i + side - 1 < size) {
+          graph.connect(name(i), name(i + side - 1), "väg", weight(random));
+        }
+      }
+    }
+  }
+
+  // Varje ny nod väljer sina grannar bland ändpunkterna för de förbindelser som redan finns,
+  // så en nod väljs med sannolikhet efter hur många grannar den har
+  private void connectScaleFree(Graph<String> graph, Random random) {
+    int links = Math.max(1, degree / 2);
+    int[] endpoints = new int[2 * links * size];
+    int count = 0;
+    for (int i = 1; i < size; i++) {
+      for (int j = 0; j < links; j++) {
+        int to = count == 0 ? 0 : endpoints[random.nextInt(count)];
+        if (to != i && graph.getEdgeBetween(name(i), name(to)) == null) {
+          graph.connect(name(i), name(to), "väg", weight(random));
+          endpoints[count++] = i;
+          endpoints[count++] = to;
+        }
+      }
+    }
+  }
+
+  private void connectChain(Graph<String> graph, Random random) {
+    int reach = Math.max(1, degree / 2);
+    for (int i = 0; i < size; i++) {
+      for (int j = i + 1; j <= i + reach && j < size; j++) {
+        graph.connect(name(i), name(j), "väg", weight(random));
+      }
+    }
+  }
+
+  private static int weight(Random random) {
+    return 1 + random.nextInt(100);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 5 && args.length != 6) {
+      System.err.println("Användning: GraphGenerator GEOMETRIC|GRID|SCALE_FREE|CHAIN antal grad frö fil [bild]");
+      System.exit(1);
+    }
+    GraphGenerator generator = new GraphGenerator(Shape.valueOf(args[0]), Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]), Long.parseLong(args[3]));
+    long start = System.nanoTime();
+    generator.write(Path.of(args[4]), args.length == 6 ? args[5] : "file:europa.gif");
+    System.out.printf(Locale.ROOT, "%s skriven på %.1f s%n", args[4], (System.nanoTime() - start) / 1e9);
+  }
+}
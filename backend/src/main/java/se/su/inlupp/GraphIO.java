@@ -0,0 +1,315 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Läser och skriver .graph-filer utan GUI:
+//   rad 1: sökväg till bakgrundsbilden
+//   rad 2: nod;x;y;nod;x;y;...
+//   resten: från;till;namn;vikt, en förbindelse per rad
+// Äldre filer har varje förbindelse åt båda hållen. Är den första förbindelseraden exakt
+// #undirected står varje förbindelse bara en gång, och den läses in utan dubblettkontroll.
+// Formatet har inga kommentarer: alla andra rader är förbindelser, även om de börjar med #.
+// Filen läses genom en buffrad kanal och varje rad tolkas direkt i bufferten. Nod- och
+// bågnamn internas så att samma namn bara avkodas en gång.
+public final class GraphIO {
+  static final int BUFFER_SIZE = 1 << 16;
+  static final String UNDIRECTED = "#undirected";
+  private static final byte[] UNDIRECTED_BYTES = UNDIRECTED.getBytes(StandardCharsets.UTF_8);
+
+  private GraphIO() {
+  }
+
+  // Tar emot innehållet i filen i den ordning det läses
+  public interface Handler {
+    void image(String path);
+
+    void node(String name, double x, double y);
+
+    void edge(String from, String to, String name, int weight);
+
+    // Anropas före den första förbindelsen om varje förbindelse bara står en gång i filen
+    default void undirected() {
+    }
+  }
+
+  public static void parse(Path file, Handler handler) throws IOException {
+    GraphLoadEvent event = new GraphLoadEvent();
+    event.begin();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      LineReader reader = new LineReader(channel, BUFFER_SIZE);
+      GraphTokenizer tokenizer = new GraphTokenizer();
+      NameTable names = new NameTable();
+
+      if (!reader.nextLine()) {
+        throw new IOException("Sökväg till bilden saknas i filen.");
+      }
+      handler.image(reader.line().trim());
+
+      if (!reader.nextLine()) {
+        throw new IOException("Noder saknas i filen.");
+      }
+      int nodes;
+      long edges = 0;
+      try {
+        nodes = parseNodes(reader, tokenizer, names, handler);
+        boolean first = true;
+        while (reader.nextLine()) {
+          int start = trimStart(reader.buffer(), reader.lineStart(), reader.lineEnd());
+          int end = trimEnd(reader.buffer(), start, reader.lineEnd());
+          if (start == end) {
+            continue;
+          }
+          if (first && isUndirectedMarker(reader.buffer(), start, end)) {
+            handler.undirected();
+          } else {
+            parseEdge(reader.buffer(), start, end, tokenizer, names, handler);
+            edges++;
+          }
+          first = false;
+        }
+      } catch (IllegalArgumentException | NoSuchElementException | IllegalStateException e) {
+        throw new IOException("Fel format på rad " + reader.lineNumber() + ": " + reader.line(), e);
+      }
+      event.report(file, "text", channel.size(), nodes, edges);
+    }
+  }
+
+  // Sant om den trimmade raden är exakt #undirected. Gäller bara den första förbindelseraden.
+  static boolean isUndirectedMarker(byte[] buffer, int start, int end) {
+    return Arrays.equals(buffer, start, end, UNDIRECTED_BYTES, 0, UNDIRECTED_BYTES.length);
+  }
+
+  // Returnerar antal noder på raden
+  static int parseNodes(LineReader reader, GraphTokenizer tokenizer, NameTable names, Handler handler) {
+    int start = trimStart(reader.buffer(), reader.lineStart(), reader.lineEnd());
+    int end = trimEnd(reader.buffer(), start, reader.lineEnd());
+    if (start == end) {
+      return 0;
+    }
+    tokenizer.reset(reader.buffer(), start, end);
+    // Noderna kommer i grupper om tre; en ofullständig grupp sist ignoreras
+    int triples = tokenizer.fieldCount() / 3;
+    for (int i = 0; i < triples; i++) {
+      String name = tokenizer.nextName(names);
+      double x = tokenizer.nextDouble();
+      double y = tokenizer.nextDouble();
+      handler.node(name, x, y);
+    }
+    return triples;
+  }
+
+  static void parseEdge(byte[] buffer, int start, int end, GraphTokenizer tokenizer, NameTable names,
+      Handler handler) {
+    tokenizer.reset(buffer, start, end);
+    if (tokenizer.fieldCount() != 4) {
+      throw new IllegalStateException("En förbindelse ska ha fyra fält.");
+    }
+    String from = tokenizer.nextName(names);
+    String to = tokenizer.nextName(names);
+    String name = tokenizer.nextName(names);
+    int weight = tokenizer.nextInt();
+    handler.edge(from, to, name, weight);
+  }
+
+  static int trimStart(byte[] buffer, int start, int end) {
+    while (start < end && (buffer[start] == ' ' || buffer[start] == '\t')) {
+      start++;
+    }
+    return start;
+  }
+
+  static int trimEnd(byte[] buffer, int start, int end) {
+    while (end > start && (buffer[end - 1] == ' ' || buffer[end - 1] == '\t')) {
+      end--;
+    }
+    return end;
+  }
+
+  // Läser in filen i grafen och returnerar sökvägen till bakgrundsbilden.
+  // Förbindelser som står åt båda hållen läggs bara till en gång.
+  public static String read(Path file, SpatialGraph<String> graph) throws IOException {
+    String[] image = new String[1];
+    parse(file, new Handler() {
+      private boolean undirected;
+
+      @Override
+      public void image(String path) {
+        image[0] = path;
+      }
+
+      @Override
+      public void undirected() {
+        undirected = true;
+      }
+
+      @Override
+      public void node(String name, double x, double y) {
+        graph.add(name, x, y);
+      }
+
+      @Override
+      public void edge(String from, String to, String name, int weight) {
+        // En dubblett i en #undirected-fil gör att connect kastar, vilket blir ett formatfel
+        if (undirected || graph.getEdgeBetween(from, to) == null) {
+          graph.connect(from, to, name, weight);
+        }
+      }
+    });
+    return image[0];
+  }
+
+  // Skriver grafen med varje förbindelse åt båda hållen, som äldre program läser
+  public static void write(Path file, String imagePath, SpatialGraph<String> graph) throws IOException {
+    write(file, imagePath, graph, false);
+  }
+
+  // Skriver grafen; med undirected står varje förbindelse en gång efter raden #undirected.
+  // Noder utan position får 0.0;0.0.
+  public static void write(Path file, String imagePath, SpatialGraph<String> graph, boolean undirected)
+      throws IOException {
+    GraphSaveEvent event = new GraphSaveEvent();
+    event.begin();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Writer writer = new Writer(channel);
+      writer.text(imagePath).newLine();
+
+      int nodes = 0;
+      long edges = 0;
+      boolean first = true;
+      for (String node : graph.getNodes()) {
+        if (!first) {
+          writer.separator();
+        }
+        boolean positioned = graph.hasPosition(node);
+        writer.name(node).separator()
+            .decimal(positioned ? graph.getX(node) : 0.0).separator()
+            .decimal(positioned ? graph.getY(node) : 0.0);
+        first = false;
+        nodes++;
+      }
+      writer.newLine();
+
+      if (undirected) {
+        writer.text(UNDIRECTED).newLine();
+      }
+      for (String node : graph.getNodes()) {
+        int id = graph.idOf(node);
+        boolean loopWritten = false; // en ögla ligger två gånger i nodens båglista
+        for (Edge<String> edge : graph.getEdgesFrom(node)) {
+          if (!undirected || id < edge.destinationId || (id == edge.destinationId && !loopWritten)) {
+            writer.edge(node, edge);
+            loopWritten |= id == edge.destinationId;
+            edges++;
+          }
+        }
+      }
+      writer.flush();
+      event.report(file, "text", writer.bytesWritten(), nodes, edges);
+    }
+  }
+
+  // Buffrad skrivning till en kanal. Kodningen av varje namn sparas så att den bara görs en gång.
+  static final class Writer {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Map<String, byte[]> encoded = new HashMap<>();
+    private final byte[] digits = new byte[11];
+    private long bytesWritten;
+
+    Writer(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    Writer bytes(byte[] bytes) throws IOException {
+      if (bytes.length > buffer.remaining()) {
+        drain();
+        if (bytes.length > buffer.capacity()) {
+          channel.write(ByteBuffer.wrap(bytes));
+          bytesWritten += bytes.length;
+          return this;
+        }
+      }
+      buffer.put(bytes);
+      return this;
+    }
+
+    private Writer put(byte b) throws IOException {
+      if (!buffer.hasRemaining()) {
+        drain();
+      }
+      buffer.put(b);
+      return this;
+    }
+
+    Writer text(String text) throws IOException {
+      return bytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Writer name(String name) throws IOException {
+      return bytes(encoded.computeIfAbsent(name, n -> n.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    Writer separator() throws IOException {
+      return put((byte) ';');
+    }
+
+    Writer newLine() throws IOException {
+      return put((byte) '\n');
+    }
+
+    Writer integer(int value) throws IOException {
+      if (value < 0) {
+        put((byte) '-');
+        if (value == Integer.MIN_VALUE) {
+          return text("2147483648");
+        }
+        value = -value;
+      }
+      int position = digits.length;
+      do {
+        digits[--position] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value > 0);
+      for (int i = position; i < digits.length; i++) {
+        put(digits[i]);
+      }
+      return this;
+    }
+
+    // Samma format som Double.toString, som GUI:t alltid har använt
+    Writer decimal(double value) throws IOException {
+      return text(Double.toString(value));
+    }
+
+    Writer edge(String from, Edge<String> edge) throws IOException {
+      return name(from).separator().name(edge.getDestination()).separator()
+          .name(edge.getName()).separator().integer(edge.getWeight()).newLine();
+    }
+
+    private void drain() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        bytesWritten += channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    void flush() throws IOException {
+      drain();
+    }
+
+    long bytesWritten() {
+      return bytesWritten;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package se.su.inlupp;
+
+import jdk.jfr.*;
+
+@Name("se.su.inlupp.GraphLoad")
+@Label("Graph Load")
+@Description("A graph file read from disk")
+final class GraphLoadEvent extends GraphFileEvent {
+}
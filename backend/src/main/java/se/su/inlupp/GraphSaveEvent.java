@@ -0,0 +1,9 @@
+package se.su.inlupp;
+
+import jdk.jfr.*;
+
+@Name("se.su.inlupp.GraphSave")
+@Label("Graph Save")
+@Description("A graph file written to disk")
+final class GraphSaveEvent extends GraphFileEvent {
+}
@@ -0,0 +1,129 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Vägsökningar för grafer som inte har egna heltals-id. Noderna numreras i den ordning de nås,
+// så allt tillstånd är lokalt för anropet och flera trådar kan söka samtidigt.
+final class GraphSearch<T> {
+  private final Function<T, ? extends Collection<Edge<T>>> edges;
+  private final Map<T, Integer> ids = new HashMap<>();
+  private final List<T> nodes = new ArrayList<>();
+  private final List<Edge<T>> parentEdge = new ArrayList<>(); // id -> bågen som noden nåddes med
+  private int[] parent = new int[16];
+  private long[] dist = new long[16];
+
+  GraphSearch(Function<T, ? extends Collection<Edge<T>>> edges) {
+    this.edges = edges;
+  }
+
+  // Id för noden, eller ett nytt id om den inte har nåtts tidigare
+  private int reach(T node, int from, Edge<T> via, long distance) {
+    Integer id = ids.get(node);
+    if (id == null) {
+      id = nodes.size();
+      ids.put(node, id);
+      nodes.add(node);
+      parentEdge.add(via);
+      if (id == parent.length) {
+        parent = Arrays.copyOf(parent, id * 2);
+        dist = Arrays.copyOf(dist, id * 2);
+      }
+    } else {
+      parentEdge.set(id, via);
+    }
+    parent[id] = from;
+    dist[id] = distance;
+    return id;
+  }
+
+  private List<Edge<T>> buildPath(int target) {
+    List<Edge<T>> path = new ArrayList<>();
+    for (int current = target; parent[current] >= 0; current = parent[current]) {
+      path.add(parentEdge.get(current));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  // Djupetförst sökning (DFS) med explicit stack av iteratorer
+  List<Edge<T>> depthFirst(T from, T to) {
+    Deque<Iterator<Edge<T>>> stack = new ArrayDeque<>();
+    Deque<Integer> path = new ArrayDeque<>();
+    int source = reach(from, -1, null, 0);
+    if (from.equals(to)) {
+      return buildPath(source);
+    }
+    stack.push(edges.apply(from).iterator());
+    path.push(source);
+
+    while (!stack.isEmpty()) {
+      Iterator<Edge<T>> iterator = stack.peek();
+      if (!iterator.hasNext()) {
+        stack.pop();
+        path.pop();
+        continue;
+      }
+      Edge<T> edge = iterator.next();
+      T neighbor = edge.getDestination();
+      if (ids.containsKey(neighbor)) {
+        continue;
+      }
+      int id = reach(neighbor, path.peek(), edge, 0);
+      if (neighbor.equals(to)) {
+        return buildPath(id);
+      }
+      stack.push(edges.apply(neighbor).iterator());
+      path.push(id);
+    }
+    return null;
+  }
+
+  // Breddenförst sökning (BFS), ger vägen med minst antal bågar
+  List<Edge<T>> breadthFirst(T from, T to) {
+    int head = reach(from, -1, null, 0);
+    while (head < nodes.size()) {
+      T current = nodes.get(head);
+      if (current.equals(to)) {
+        return buildPath(head);
+      }
+      for (Edge<T> edge : edges.apply(current)) {
+        if (!ids.containsKey(edge.getDestination())) {
+          reach(edge.getDestination(), head, edge, dist[head] + 1);
+        }
+      }
+      head++;
+    }
+    return null;
+  }
+
+  // Dijkstra med radix heap, avbryts när målet tas ut ur kön
+  PathResult<T> dijkstra(T from, T to) {
+    RadixHeap heap = new RadixHeap();
+    BitSet closed = new BitSet();
+    heap.push(0, reach(from, -1, null, 0));
+    int expanded = 0;
+
+    while (!heap.isEmpty()) {
+      int current = heap.pop();
+      if (closed.get(current)) {
+        continue; // inaktuell post
+      }
+      closed.set(current);
+      T node = nodes.get(current);
+      if (node.equals(to)) {
+        return new PathResult<>(buildPath(current), expanded);
+      }
+      expanded++;
+
+      for (Edge<T> edge : edges.apply(node)) {
+        long candidate = dist[current] + edge.getWeight();
+        Integer neighbor = ids.get(edge.getDestination());
+        if (neighbor == null || (candidate < dist[neighbor] && !closed.get(neighbor))) {
+          heap.push(candidate, reach(edge.getDestination(), current, edge, candidate));
+        }
+      }
+    }
+    return new PathResult<>(null, expanded);
+  }
+}
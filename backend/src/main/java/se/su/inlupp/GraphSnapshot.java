@@ -0,0 +1,135 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Oföränderlig version av en VersionedGraph. Kan läsas från valfri tråd medan grafen ändras.
+public final class GraphSnapshot<T> implements Graph<T> {
+  private final PersistentMap<T, Edge<T>[]> adjacency;
+  private final long version;
+
+  GraphSnapshot(PersistentMap<T, Edge<T>[]> adjacency, long version) {
+    this.adjacency = adjacency;
+    this.version = version;
+  }
+
+  PersistentMap<T, Edge<T>[]> adjacency() {
+    return adjacency;
+  }
+
+  // Antal ändringar som hade gjorts i grafen när versionen togs
+  public long getVersion() {
+    return version;
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("En version av grafen kan inte ändras.");
+  }
+
+  @Override
+  public void add(T node) {
+    throw readOnly();
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    throw readOnly();
+  }
+
+  @Override
+  public void disconnect(T node1, T node2) {
+    throw readOnly();
+  }
+
+  @Override
+  public void remove(T node) {
+    throw readOnly();
+  }
+
+  @Override
+  public Set<T> getNodes() {
+    return adjacency.keySet();
+  }
+
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    Edge<T>[] edges = adjacency.get(node);
+    if (edges == null) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    return Collections.unmodifiableList(Arrays.asList(edges));
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    Edge<T>[] edges = adjacency.get(node1);
+    if (edges == null || !adjacency.containsKey(node2)) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+    return find(edges, node2);
+  }
+
+  static <T> Edge<T> find(Edge<T>[] edges, T destination) {
+    for (Edge<T> edge : edges) {
+      if (edge.getDestination().equals(destination)) {
+        return edge;
+      }
+    }
+    return null;
+  }
+
+  private Collection<Edge<T>> edgesOrEmpty(T node) {
+    Edge<T>[] edges = adjacency.get(node);
+    return edges == null ? List.of() : Arrays.asList(edges);
+  }
+
+  private boolean contains(T from, T to) {
+    return adjacency.containsKey(from) && adjacency.containsKey(to);
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    return contains(from, to) && new GraphSearch<>(this::edgesOrEmpty).depthFirst(from, to) != null;
+  }
+
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    return contains(from, to) ? new GraphSearch<>(this::edgesOrEmpty).depthFirst(from, to) : null;
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    return contains(from, to) ? new GraphSearch<>(this::edgesOrEmpty).breadthFirst(from, to) : null;
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    if (!contains(from, to)) {
+      return new PathResult<>(null, 0);
+    }
+    return new GraphSearch<>(this::edgesOrEmpty).dijkstra(from, to);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    adjacency.forEach((node, edges) -> {
+      sb.append(node).append(":\n");
+      for (Edge<T> edge : edges) {
+        sb.append("  ").append(edge.toString()).append("\n");
+      }
+    });
+
+    return sb.toString();
+  }
+}
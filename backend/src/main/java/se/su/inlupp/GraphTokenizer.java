@@ -0,0 +1,140 @@
+package se.su.inlupp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+// Delar upp en rad i en .graph-fil i fält åtskilda av ';' direkt i byte-bufferten,
+// utan reguljära uttryck och utan att skapa delsträngar för varje fält.
+final class GraphTokenizer {
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private byte[] buffer;
+  private int position;
+  private int end;
+  private int fieldStart; // början på fältet som nextField senast hittade
+
+  void reset(byte[] buffer, int start, int end) {
+    this.buffer = buffer;
+    this.position = start;
+    this.end = end;
+  }
+
+  boolean hasMore() {
+    return position <= end;
+  }
+
+  int fieldCount() {
+    int count = 1;
+    for (int i = position; i < end; i++) {
+      if (buffer[i] == ';') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // Slutet på nästa fält; position flyttas förbi avgränsaren
+  private int nextField() {
+    if (position > end) {
+      throw new NoSuchElementException("Fält saknas.");
+    }
+    int start = position;
+    while (position < end && buffer[position] != ';') {
+      position++;
+    }
+    int fieldEnd = position;
+    position++;
+    fieldStart = start;
+    return fieldEnd;
+  }
+
+  String nextName(NameTable names) {
+    int fieldEnd = nextField();
+    return names.intern(buffer, fieldStart, fieldEnd);
+  }
+
+  // Nästa fälts nummer i tabellen; nya namn läggs till
+  int nextNameId(NameTable names) {
+    int fieldEnd = nextField();
+    return names.internId(buffer, fieldStart, fieldEnd);
+  }
+
+  // Nästa fälts nummer i tabellen utan att lägga till det, -1 om namnet saknas
+  int nextKnownId(NameTable names) {
+    int fieldEnd = nextField();
+    return names.lookupId(buffer, fieldStart, fieldEnd);
+  }
+
+  void skip() {
+    nextField();
+  }
+
+  int nextInt() {
+    int fieldEnd = nextField();
+    int i = fieldStart;
+    boolean negative = i < fieldEnd && buffer[i] == '-';
+    if (negative || (i < fieldEnd && buffer[i] == '+')) {
+      i++;
+    }
+    if (i == fieldEnd) {
+      throw numberFormat(fieldStart, fieldEnd);
+    }
+    long value = 0;
+    for (; i < fieldEnd; i++) {
+      int digit = buffer[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw numberFormat(fieldStart, fieldEnd);
+      }
+      value = value * 10 + digit;
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        throw numberFormat(fieldStart, fieldEnd);
+      }
+    }
+    value = negative ? -value : value;
+    if (value > Integer.MAX_VALUE) {
+      throw numberFormat(fieldStart, fieldEnd);
+    }
+    return (int) value;
+  }
+
+  // Vanliga decimaltal som "470.0" tolkas direkt; övriga former går via Double.parseDouble
+  double nextDouble() {
+    int fieldEnd = nextField();
+    int i = fieldStart;
+    boolean negative = i < fieldEnd && buffer[i] == '-';
+    if (negative) {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int decimals = -1;
+    for (; i < fieldEnd; i++) {
+      byte b = buffer[i];
+      if (b == '.' && decimals < 0) {
+        decimals = 0;
+      } else if (b >= '0' && b <= '9' && digits < 18) {
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (decimals >= 0) {
+          decimals++;
+        }
+      } else {
+        break;
+      }
+    }
+    if (i == fieldEnd && digits > 0 && mantissa < (1L << 53) && Math.max(decimals, 0) < POWERS_OF_TEN.length) {
+      // Både mantissan och tiopotensen är exakta, så divisionen ger ett korrekt avrundat tal
+      double value = mantissa / POWERS_OF_TEN[Math.max(decimals, 0)];
+      return negative ? -value : value;
+    }
+    String text = new String(buffer, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+    return Double.parseDouble(text.trim());
+  }
+
+  private NumberFormatException numberFormat(int start, int end) {
+    return new NumberFormatException("Ogiltigt tal: " + new String(buffer, start, end - start, StandardCharsets.UTF_8));
+  }
+}
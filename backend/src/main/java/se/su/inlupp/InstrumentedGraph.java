@@ -0,0 +1,385 @@
+package se.su.inlupp;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Mäter anropen till en annan graf: antal och tid per operation i LatencyHistogram, och hur
+// många noder varje kortaste-vägsökning expanderade (när grafen räknar dem, se PathResult).
+// Siffrorna kan läsas med snapshot eller över JMX efter register.
+//
+// Avstängd kostar mätningen en volatile-läsning per anrop, så dekoratorn kan sitta kvar i
+// produktion och slås på när något går långsamt. Histogrammen tål anrop från flera trådar,
+// så trådsäkerheten är den underliggande grafens.
+public class InstrumentedGraph<T> implements Graph<T>, InstrumentedGraphMXBean {
+
+  public enum Operation {
+    ADD, CONNECT, SET_CONNECTION_WEIGHT, DISCONNECT, REMOVE, REMOVE_ALL, GET_NODES, GET_EDGES_FROM,
+    GET_EDGE_BETWEEN, PATH_EXISTS, GET_PATH, GET_FEWEST_HOPS_PATH, GET_SHORTEST_PATH, GET_SHORTEST_PATHS
+  }
+
+  private static final long OFF = Long.MIN_VALUE; // starttid när mätningen är avstängd
+
+  private final Graph<T> graph;
+  private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+  private final LatencyHistogram visitedNodes = new LatencyHistogram();
+  private volatile boolean enabled;
+  private ObjectName objectName;
+
+  public InstrumentedGraph(Graph<T> graph) {
+    this(graph, true);
+  }
+
+  public InstrumentedGraph(Graph<T> graph, boolean enabled) {
+    this.graph = graph;
+    this.enabled = enabled;
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = new LatencyHistogram();
+    }
+  }
+
+  private long begin() {
+    return enabled ? System.nanoTime() : OFF;
+  }
+
+  private void end(Operation operation, long start) {
+    if (start != OFF) {
+      latencies[operation.ordinal()].record(Math.max(0, System.nanoTime() - start));
+    }
+  }
+
+  // Sammanfattning av ett histogram; tider i nanosekunder
+  public static final class Stats {
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    public Stats(long count, double mean, long p50, long p90, long p99, long max) {
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    static Stats of(LatencyHistogram histogram) {
+      return new Stats(histogram.getCount(), histogram.getMean(), histogram.getPercentile(50),
+          histogram.getPercentile(90), histogram.getPercentile(99), histogram.getMax());
+    }
+
+    // Används av JMX för att bygga upp objektet igen på klientsidan
+    public static Stats from(CompositeData data) {
+      return new Stats((Long) data.get("count"), (Double) data.get("mean"), (Long) data.get("p50"),
+          (Long) data.get("p90"), (Long) data.get("p99"), (Long) data.get("max"));
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getMax() {
+      return max;
+    }
+  }
+
+  public static final class Snapshot {
+    private final EnumMap<Operation, Stats> latencies;
+    private final Stats visitedNodes;
+
+    Snapshot(EnumMap<Operation, Stats> latencies, Stats visitedNodes) {
+      this.latencies = latencies;
+      this.visitedNodes = visitedNodes;
+    }
+
+    public long getCalls(Operation operation) {
+      return latencies.get(operation).getCount();
+    }
+
+    public Stats getLatency(Operation operation) {
+      return latencies.get(operation);
+    }
+
+    // Expanderade noder per kortaste-vägsökning
+    public Stats getVisitedNodes() {
+      return visitedNodes;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-21s %10s %10s %10s %10s%n",
+          "operation", "antal", "p50 µs", "p99 µs", "max µs"));
+      for (Map.Entry<Operation, Stats> entry : latencies.entrySet()) {
+        Stats stats = entry.getValue();
+        if (stats.getCount() > 0) {
+          text.append(String.format(Locale.ROOT, "%-21s %10d %10.1f %10.1f %10.1f%n", entry.getKey(),
+              stats.getCount(), stats.getP50() / 1e3, stats.getP99() / 1e3, stats.getMax() / 1e3));
+        }
+      }
+      if (visitedNodes.getCount() > 0) {
+        text.append(String.format(Locale.ROOT, "expanderade noder: p50 %d, p99 %d, max %d%n",
+            visitedNodes.getP50(), visitedNodes.getP99(), visitedNodes.getMax()));
+      }
+      return text.toString();
+    }
+  }
+
+  public Snapshot snapshot() {
+    EnumMap<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      stats.put(operation, Stats.of(latencies[operation.ordinal()]));
+    }
+    return new Snapshot(stats, Stats.of(visitedNodes));
+  }
+
+  // Registrerar grafen i plattformens MBean-server som se.su.inlupp:type=InstrumentedGraph,name=name
+  public synchronized ObjectName register(String name) throws JMException {
+    if (objectName != null) {
+      throw new IllegalStateException("Grafen är redan registrerad.");
+    }
+    ObjectName candidate = new ObjectName("se.su.inlupp", new Hashtable<>(
+        Map.of("type", "InstrumentedGraph", "name", ObjectName.quote(name))));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+    objectName = candidate;
+    return candidate;
+  }
+
+  public synchronized void unregister() throws JMException {
+    if (objectName != null) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      objectName = null;
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public long getCalls() {
+    long total = 0;
+    for (LatencyHistogram histogram : latencies) {
+      total += histogram.getCount();
+    }
+    return total;
+  }
+
+  @Override
+  public Map<String, Stats> getLatencyNanos() {
+    Map<String, Stats> stats = new TreeMap<>();
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram histogram = latencies[operation.ordinal()];
+      if (histogram.getCount() > 0) {
+        stats.put(operation.name(), Stats.of(histogram));
+      }
+    }
+    return stats;
+  }
+
+  @Override
+  public Stats getVisitedNodes() {
+    return Stats.of(visitedNodes);
+  }
+
+  @Override
+  public void reset() {
+    for (LatencyHistogram histogram : latencies) {
+      histogram.reset();
+    }
+    visitedNodes.reset();
+  }
+
+  @Override
+  public void add(T node) {
+    long start = begin();
+    try {
+      graph.add(node);
+    } finally {
+      end(Operation.ADD, start);
+    }
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    long start = begin();
+    try {
+      graph.connect(node1, node2, name, weight);
+    } finally {
+      end(Operation.CONNECT, start);
+    }
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    long start = begin();
+    try {
+      graph.setConnectionWeight(node1, node2, weight);
+    } finally {
+      end(Operation.SET_CONNECTION_WEIGHT, start);
+    }
+  }
+
+  @Override
+  public void disconnect(T node1, T node2) {
+    long start = begin();
+    try {
+      graph.disconnect(node1, node2);
+    } finally {
+      end(Operation.DISCONNECT, start);
+    }
+  }
+
+  @Override
+  public void remove(T node) {
+    long start = begin();
+    try {
+      graph.remove(node);
+    } finally {
+      end(Operation.REMOVE, start);
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<? extends T> nodes) {
+    long start = begin();
+    try {
+      graph.removeAll(nodes);
+    } finally {
+      end(Operation.REMOVE_ALL, start);
+    }
+  }
+
+  @Override
+  public Set<T> getNodes() {
+    long start = begin();
+    try {
+      return graph.getNodes();
+    } finally {
+      end(Operation.GET_NODES, start);
+    }
+  }
+
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    long start = begin();
+    try {
+      return graph.getEdgesFrom(node);
+    } finally {
+      end(Operation.GET_EDGES_FROM, start);
+    }
+  }
+
+  // Mäts inte; de går igenom hela grafen och anropas sällan
+  @Override
+  public void forEachNode(Consumer<? super T> action) {
+    graph.forEachNode(action);
+  }
+
+  @Override
+  public void forEachEdge(BiConsumer<? super T, ? super Edge<T>> action) {
+    graph.forEachEdge(action);
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    long start = begin();
+    try {
+      return graph.getEdgeBetween(node1, node2);
+    } finally {
+      end(Operation.GET_EDGE_BETWEEN, start);
+    }
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    long start = begin();
+    try {
+      return graph.pathExists(from, to);
+    } finally {
+      end(Operation.PATH_EXISTS, start);
+    }
+  }
+
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    long start = begin();
+    try {
+      return graph.getPath(from, to);
+    } finally {
+      end(Operation.GET_PATH, start);
+    }
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    long start = begin();
+    try {
+      return graph.getFewestHopsPath(from, to);
+    } finally {
+      end(Operation.GET_FEWEST_HOPS_PATH, start);
+    }
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    long start = begin();
+    try {
+      PathResult<T> result = graph.findShortestPath(from, to);
+      if (start != OFF && result.getExpandedNodes() >= 0) {
+        visitedNodes.record(result.getExpandedNodes());
+      }
+      return result;
+    } finally {
+      end(Operation.GET_SHORTEST_PATH, start);
+    }
+  }
+
+  @Override
+  public List<List<Edge<T>>> getShortestPaths(T from, T to, int k) {
+    long start = begin();
+    try {
+      return graph.getShortestPaths(from, to, k);
+    } finally {
+      end(Operation.GET_SHORTEST_PATHS, start);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return graph.toString();
+  }
+}
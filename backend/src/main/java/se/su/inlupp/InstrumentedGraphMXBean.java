@@ -0,0 +1,20 @@
+package se.su.inlupp;
+
+import java.util.Map;
+
+// Det som InstrumentedGraph visar över JMX
+public interface InstrumentedGraphMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getCalls();
+
+  // Tider i nanosekunder per operation som har anropats
+  Map<String, InstrumentedGraph.Stats> getLatencyNanos();
+
+  InstrumentedGraph.Stats getVisitedNodes();
+
+  void reset();
+}
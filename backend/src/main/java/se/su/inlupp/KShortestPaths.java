@@ -0,0 +1,115 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Yens algoritm för de k kortaste vägarna utan upprepade noder. Varje ny väg byggs av en rot,
+// början av den förra vägen fram till en spårnod, och den kortaste vägen från spårnoden till
+// målet som inte går genom rotens noder eller börjar med samma båge som en redan hittad väg
+// med samma rot. Själva sökningen görs av grafen genom SpurSearch.
+final class KShortestPaths {
+
+  private KShortestPaths() {
+  }
+
+  interface SpurSearch<T> {
+    // Kortaste vägen från spur till target som inte besöker bannedNodes och inte går direkt
+    // från spur till någon i bannedNeighbors, null om den saknas
+    List<Edge<T>> find(T spur, T target, Set<T> bannedNodes, Set<T> bannedNeighbors);
+  }
+
+  private static final class Candidate<T> {
+    final List<Edge<T>> edges;
+    final long weight;
+
+    Candidate(List<Edge<T>> edges) {
+      this.edges = edges;
+      long total = 0;
+      for (Edge<T> edge : edges) {
+        total += edge.getWeight();
+      }
+      this.weight = total;
+    }
+  }
+
+  static <T> List<List<Edge<T>>> find(T from, T to, int k, SpurSearch<T> search) {
+    if (k < 1) {
+      throw new IllegalArgumentException("Antalet vägar måste vara minst 1.");
+    }
+    List<List<Edge<T>>> found = new ArrayList<>();
+    List<List<T>> foundNodes = new ArrayList<>();
+    List<Edge<T>> first = search.find(from, to, Set.of(), Set.of());
+    if (first == null) {
+      return found;
+    }
+    found.add(first);
+    foundNodes.add(nodes(from, first));
+
+    // Kandidaterna ordnas på vikt och sedan på antal bågar
+    PriorityQueue<Candidate<T>> candidates = new PriorityQueue<>(
+        Comparator.<Candidate<T>>comparingLong(c -> c.weight).thenComparingInt(c -> c.edges.size()));
+    Set<List<T>> seen = new HashSet<>();
+    seen.add(foundNodes.get(0));
+
+    while (found.size() < k) {
+      List<Edge<T>> previous = found.get(found.size() - 1);
+      List<T> previousNodes = foundNodes.get(foundNodes.size() - 1);
+
+      // Hur många noder varje hittad väg har gemensamt med den förra från början
+      int[] common = new int[found.size()];
+      for (int p = 0; p < common.length; p++) {
+        List<T> other = foundNodes.get(p);
+        int length = 0;
+        while (length < other.size() && length < previousNodes.size()
+            && Objects.equals(other.get(length), previousNodes.get(length))) {
+          length++;
+        }
+        common[p] = length;
+      }
+
+      // Rotens noder före spårnoden; växer med en nod för varje ny spårnod
+      Set<T> bannedNodes = new HashSet<>();
+      for (int i = 0; i < previous.size(); i++) {
+        T spur = previousNodes.get(i);
+        if (i > 0) {
+          bannedNodes.add(previousNodes.get(i - 1));
+        }
+
+        // Vägar med samma rot får inte fortsätta med samma båge från spårnoden
+        Set<T> bannedNeighbors = new HashSet<>();
+        for (int p = 0; p < common.length; p++) {
+          if (common[p] > i && found.get(p).size() > i) {
+            bannedNeighbors.add(found.get(p).get(i).getDestination());
+          }
+        }
+
+        List<Edge<T>> spurPath = search.find(spur, to, bannedNodes, bannedNeighbors);
+        if (spurPath == null) {
+          continue;
+        }
+        List<Edge<T>> path = new ArrayList<>(previous.subList(0, i));
+        path.addAll(spurPath);
+        if (seen.add(nodes(from, path))) {
+          candidates.add(new Candidate<>(path));
+        }
+      }
+
+      if (candidates.isEmpty()) {
+        break;
+      }
+      List<Edge<T>> next = candidates.poll().edges;
+      found.add(next);
+      foundNodes.add(nodes(from, next));
+    }
+    return found;
+  }
+
+  // Noderna längs vägen, från och med from
+  private static <T> List<T> nodes(T from, List<Edge<T>> path) {
+    List<T> nodes = new ArrayList<>(path.size() + 1);
+    nodes.add(from);
+    for (Edge<T> edge : path) {
+      nodes.add(edge.getDestination());
+    }
+    return nodes;
+  }
+}
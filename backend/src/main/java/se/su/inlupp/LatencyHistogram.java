@@ -0,0 +1,99 @@
+package se.su.inlupp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram över tider i nanosekunder, i stil med HdrHistogram. Värden under 128 får en hink
+// var; därefter delas varje fördubbling i 64 hinkar, så att ett percentilvärde aldrig är mer
+// än 1/64 fel oavsett storlek. Hinkarna är en AtomicLongArray, så flera trådar kan registrera
+// samtidigt utan lås. Antalet räknas fram ur hinkarna och summan ligger i en LongAdder, så att
+// trådarna inte delar någon gemensam räknare.
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = SUB_BUCKETS * (64 - SUB_BITS) + SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+
+  static int index(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return SUB_BUCKETS * shift + (int) (value >>> shift);
+  }
+
+  // Största värdet som hamnar i hinken
+  static long highestIn(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      throw new IllegalArgumentException("Tiden får inte vara negativ.");
+    }
+    counts.incrementAndGet(index(nanos));
+    sum.add(nanos);
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) sum.sum() / count;
+  }
+
+  // Värdet som andelen percentile / 100 av registreringarna är mindre än eller lika med,
+  // avrundat uppåt till hinkens övre gräns. 0 om inget har registrerats.
+  public long getPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentilen måste ligga mellan 0 och 100.");
+    }
+    long count = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return highestIn(i);
+      }
+    }
+    return highestIn(BUCKETS - 1);
+  }
+
+  public long getMax() {
+    for (int i = BUCKETS - 1; i >= 0; i--) {
+      if (counts.get(i) > 0) {
+        return highestIn(i);
+      }
+    }
+    return 0;
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    sum.reset();
+  }
+}
@@ -0,0 +1,106 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Läser rader från en kanal in i en återanvänd byte-buffert. Raden ligger i
+// buffer()[lineStart(), lineEnd()) utan radslut och är giltig till nästa anrop av nextLine.
+final class LineReader {
+  private final ReadableByteChannel channel;
+  private byte[] buffer;
+  private int start;   // början på det som inte har lästs som rad än
+  private int limit;   // slutet på inläst data
+  private boolean eof;
+  private int lineStart;
+  private int lineEnd;
+  private int lineNumber;
+  private long bytesRead;
+
+  LineReader(ReadableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.buffer = new byte[bufferSize];
+  }
+
+  boolean nextLine() throws IOException {
+    int scan = start;
+    while (true) {
+      for (int i = scan; i < limit; i++) {
+        if (buffer[i] == '\n') {
+          setLine(start, i);
+          start = i + 1;
+          return true;
+        }
+      }
+      if (eof) {
+        if (start == limit) {
+          return false;
+        }
+        setLine(start, limit); // sista raden saknar radslut
+        start = limit;
+        return true;
+      }
+      scan = limit - start;
+      fill();
+    }
+  }
+
+  private void setLine(int from, int to) {
+    if (to > from && buffer[to - 1] == '\r') {
+      to--;
+    }
+    lineStart = from;
+    lineEnd = to;
+    lineNumber++;
+  }
+
+  // Flyttar oläst data till början av bufferten, växer om en rad inte får plats, och läser mer
+  private void fill() throws IOException {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, limit - start);
+      limit -= start;
+      start = 0;
+    } else if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+    if (read < 0) {
+      eof = true;
+    } else {
+      limit += read;
+      bytesRead += read;
+    }
+  }
+
+  byte[] buffer() {
+    return buffer;
+  }
+
+  int lineStart() {
+    return lineStart;
+  }
+
+  int lineEnd() {
+    return lineEnd;
+  }
+
+  int lineNumber() {
+    return lineNumber;
+  }
+
+  long bytesRead() {
+    return bytesRead;
+  }
+
+  // Position i kanalen direkt efter den senast lästa raden och dess radslut
+  long position() {
+    return bytesRead - (limit - start);
+  }
+
+  // Raden som text, för felmeddelanden
+  String line() {
+    return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+  }
+}
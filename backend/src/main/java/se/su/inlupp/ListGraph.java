@@ -1,31 +1,119 @@
 package se.su.inlupp;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+// Grafen är inte trådsäker för ändringar, men flera trådar kan söka i den samtidigt så länge
+// ingen ändrar den: varje tråd får egna arbetsarrayer för sökningarna, och indexet för
+// pathExists byggs om och läses under grafens lås.
 public class ListGraph<T> implements Graph<T> {
 
-  private final Map<T, List<Edge<T>>> adjacencyList = new HashMap<>();
+  // Varje nod får ett heltals-id så att sökningarna kan använda arrayer i stället för mappar
+  private final Map<T, Integer> ids = new HashMap<>();
+  private final List<T> nodes = new ArrayList<>(); // id -> nod, null om id:t är ledigt
+  private final List<List<Edge<T>>> adjacencyList = new ArrayList<>(); // id -> bågar
+  private final List<EdgeIndex> edgeIndexes = new ArrayList<>(); // id -> granne-till-båge index, null för små listor
+  private final Deque<Integer> freeIds = new ArrayDeque<>();
+  private final ThreadLocal<SearchState> states = ThreadLocal.withInitial(SearchState::new);
+  private int modCount; // räknas upp vid varje ändring av noder eller förbindelser
+
+  // Valfritt index över sammanhängande komponenter för pathExists. add och connect uppdaterar
+  // det direkt, disconnect och remove gör att det byggs om nästa gång det behövs.
+  private UnionFind components;
+  private boolean componentsStale;
+  private long connectivityHits;
+  private long connectivityRebuilds;
 
   @Override
   public void add(T node) {
-    adjacencyList.putIfAbsent(node, new ArrayList<>());
+    if (ids.containsKey(node)) {
+      return;
+    }
+    Integer id = freeIds.poll();
+    if (id == null) {
+      id = nodes.size();
+      nodes.add(node);
+      adjacencyList.add(new ArrayList<>());
+      edgeIndexes.add(null);
+    } else {
+      nodes.set(id, node);
+      adjacencyList.set(id, new ArrayList<>());
+    }
+    ids.put(node, id);
+    modCount++;
+    if (components != null && !componentsStale) {
+      components.makeSet(id);
+    }
   }
 
   @Override
   public void remove(T node) {
-    if (!adjacencyList.containsKey(node)) {
+    Integer id = ids.remove(node);
+    if (id == null) {
       throw new NoSuchElementException("Noden finns inte i grafen.");
     }
-    adjacencyList.remove(node);
 
-    for (List<Edge<T>> edges : adjacencyList.values()) {
-      edges.removeIf(edge -> edge.getDestination().equals(node));
+    // Förbindelserna är oriktade, så nodens egna bågar visar vilka grannlistor som berörs
+    for (Edge<T> edge : adjacencyList.get(id)) {
+      if (edge.destinationId != id) {
+        removeEdgeAt(edge.destinationId, findEdge(edge.destinationId, id));
+      }
     }
+    release(id);
+  }
+
+  @Override
+  public void removeAll(Collection<? extends T> nodesToRemove) {
+    List<Integer> removed = new ArrayList<>(nodesToRemove.size());
+    for (T node : nodesToRemove) {
+      Integer id = ids.get(node);
+      if (id == null) {
+        throw new NoSuchElementException("Noden finns inte i grafen.");
+      }
+      removed.add(id);
+    }
+
+    // Markera alla noder först så att bågar mellan två borttagna noder inte behöver röras
+    SearchState s = states.get();
+    s.begin(nodes.size());
+    for (int id : removed) {
+      s.reach(id, 0, -1, -1);
+    }
+    for (int id : removed) {
+      if (nodes.get(id) == null) {
+        continue; // samma nod förekom flera gånger
+      }
+      for (Edge<T> edge : adjacencyList.get(id)) {
+        int neighbor = edge.destinationId;
+        if (!s.reached(neighbor)) {
+          removeEdgeAt(neighbor, findEdge(neighbor, id));
+        }
+      }
+      ids.remove(nodes.get(id));
+      release(id);
+    }
+  }
+
+  private void release(int id) {
+    nodes.set(id, null);
+    adjacencyList.set(id, null);
+    edgeIndexes.set(id, null);
+    freeIds.push(id);
+    removed(id);
+    modCount++;
+    componentsStale = true;
+  }
+
+  // Anropas när ett id har frigjorts, för subklasser som lagrar egna data per id
+  void removed(int id) {
   }
 
   @Override
   public void connect(T node1, T node2, String name, int weight) {
-    if (!adjacencyList.containsKey(node1) || !adjacencyList.containsKey(node2)) {
+    Integer id1 = ids.get(node1);
+    Integer id2 = ids.get(node2);
+    if (id1 == null || id2 == null) {
       throw new NoSuchElementException("En eller båda noder saknas i grafen.");
     }
 
@@ -34,32 +122,37 @@ public class ListGraph<T> implements Graph<T> {
     }
 
     // Kontrollera om det redan finns en kant mellan noderna
-    for (Edge<T> edge : adjacencyList.get(node1)) {
-      if (edge.getDestination().equals(node2)) {
-        throw new IllegalStateException("En förbindelse mellan noderna finns redan.");
-      }
+    if (findEdge(id1, id2) >= 0) {
+      throw new IllegalStateException("En förbindelse mellan noderna finns redan.");
     }
 
     // Lägg till kanten åt båda håll (oriktad graf)
-    adjacencyList.get(node1).add(new Edge<>(node2, name, weight));
-    adjacencyList.get(node2).add(new Edge<>(node1, name, weight));
+    addEdge(id1, new Edge<>(node2, name, weight, id2));
+    addEdge(id2, new Edge<>(node1, name, weight, id1));
+    modCount++;
+    if (components != null && !componentsStale) {
+      components.union(id1, id2);
+    }
   }
 
   @Override
   public void disconnect(T node1, T node2) {
-    if (!adjacencyList.containsKey(node1) || !adjacencyList.containsKey(node2)) {
+    Integer id1 = ids.get(node1);
+    Integer id2 = ids.get(node2);
+    if (id1 == null || id2 == null) {
       throw new NoSuchElementException("En eller båda noder saknas i grafen.");
     }
 
-    Edge<T> edge1 = getEdgeBetween(node1, node2);
-    Edge<T> edge2 = getEdgeBetween(node2, node1);
-
-    if (edge1 == null || edge2 == null) {
+    int slot1 = findEdge(id1, id2);
+    if (slot1 < 0) {
       throw new IllegalStateException("Det finns ingen förbindelse mellan dessa noder.");
     }
 
-    adjacencyList.get(node1).remove(edge1);
-    adjacencyList.get(node2).remove(edge2);
+    // En ögla har båda halvorna i samma lista, så den andra slås upp först när den första är borta
+    removeEdgeAt(id1, slot1);
+    removeEdgeAt(id2, findEdge(id2, id1));
+    modCount++;
+    componentsStale = true;
   }
 
   @Override
@@ -79,40 +172,135 @@ public class ListGraph<T> implements Graph<T> {
     edge2.setWeight(weight);
   }
 
+  // Vyerna kopierar ingenting. Läggs noder eller förbindelser till eller tas bort medan en vy
+  // itereras kastar iteratorn ConcurrentModificationException. Vikter kan ändras under iteration.
+  // Vyn över en borttagen nods bågar slutar följa grafen.
   @Override
   public Set<T> getNodes() {
-    return new HashSet<>(adjacencyList.keySet()); // Returnerar en kopia av noderna
+    return Collections.unmodifiableSet(ids.keySet());
   }
 
   @Override
   public Collection<Edge<T>> getEdgesFrom(T node) {
-    if (!adjacencyList.containsKey(node)) {
+    if (!ids.containsKey(node)) {
       throw new NoSuchElementException("Noden finns inte i grafen.");
     }
-    return new ArrayList<>(adjacencyList.get(node));
+    return Collections.unmodifiableList(edgesOf(node));
+  }
+
+  // Samma regler som för vyerna: strukturella ändringar från action ger ConcurrentModificationException
+  @Override
+  public void forEachNode(Consumer<? super T> action) {
+    int expected = modCount;
+    for (int id = 0; id < nodes.size(); id++) {
+      T node = nodes.get(id);
+      if (node != null) {
+        action.accept(node);
+        if (modCount != expected) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void forEachEdge(BiConsumer<? super T, ? super Edge<T>> action) {
+    int expected = modCount;
+    for (int id = 0; id < nodes.size(); id++) {
+      List<Edge<T>> edges = adjacencyList.get(id);
+      if (edges == null) {
+        continue;
+      }
+      T node = nodes.get(id);
+      for (int i = 0; i < edges.size(); i++) {
+        action.accept(node, edges.get(i));
+        if (modCount != expected) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    }
   }
 
   @Override
   public Edge<T> getEdgeBetween(T node1, T node2) {
-    if (!adjacencyList.containsKey(node1) || !adjacencyList.containsKey(node2)) {
+    Integer id1 = ids.get(node1);
+    Integer id2 = ids.get(node2);
+    if (id1 == null || id2 == null) {
       throw new NoSuchElementException("En eller båda noder saknas i grafen.");
     }
 
-    for (Edge<T> edge : adjacencyList.get(node1)) {
-      if (edge.getDestination().equals(node2)) {
-        return edge;
+    int index = findEdge(id1, id2);
+    return index < 0 ? null : adjacencyList.get(id1).get(index);
+  }
+
+  // Index för bågen från id1 till id2 i id1:s lista, -1 om den saknas
+  private int findEdge(int id1, int id2) {
+    EdgeIndex index = edgeIndexes.get(id1);
+    if (index != null) {
+      return index.get(id2);
+    }
+    List<Edge<T>> edges = adjacencyList.get(id1);
+    for (int i = 0; i < edges.size(); i++) {
+      if (edges.get(i).destinationId == id2) {
+        return i;
       }
     }
-    return null;
+    return -1;
+  }
+
+  private void addEdge(int owner, Edge<T> edge) {
+    List<Edge<T>> edges = adjacencyList.get(owner);
+    edges.add(edge);
+    EdgeIndex index = edgeIndexes.get(owner);
+    if (index != null) {
+      index.put(edge.destinationId, edges.size() - 1);
+    } else if (edges.size() > EdgeIndex.THRESHOLD) {
+      // Listan har blivit stor nog för att ett index ska löna sig
+      index = new EdgeIndex(edges.size());
+      for (int i = 0; i < edges.size(); i++) {
+        index.put(edges.get(i).destinationId, i);
+      }
+      edgeIndexes.set(owner, index);
+    }
+  }
+
+  // Tar bort bågen genom att flytta in den sista bågen på dess plats
+  private void removeEdgeAt(int owner, int slot) {
+    List<Edge<T>> edges = adjacencyList.get(owner);
+    Edge<T> removed = edges.get(slot);
+    Edge<T> last = edges.remove(edges.size() - 1);
+    if (last != removed) {
+      edges.set(slot, last);
+    }
+    EdgeIndex index = edgeIndexes.get(owner);
+    if (index != null) {
+      index.remove(removed.destinationId);
+      if (last != removed) {
+        index.put(last.destinationId, slot);
+      }
+      if (removed.destinationId == owner) {
+        // Öglans andra halva delar nyckel med den borttagna och måste läggas in igen
+        for (int i = 0; i < edges.size(); i++) {
+          if (edges.get(i).destinationId == owner) {
+            index.put(owner, i);
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private List<Edge<T>> edgesOf(T node) {
+    return adjacencyList.get(ids.get(node));
   }
 
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
 
-    for (T node : adjacencyList.keySet()) {
+    for (T node : ids.keySet()) {
       sb.append(node).append(":\n");
-      for (Edge<T> edge : adjacencyList.get(node)) {
+      for (Edge<T> edge : edgesOf(node)) {
         sb.append("  ").append(edge.toString()).append("\n");
       }
     }
@@ -122,69 +310,320 @@ public class ListGraph<T> implements Graph<T> {
 
   @Override
   public boolean pathExists(T from, T to) {
-    if (!adjacencyList.containsKey(from) || !adjacencyList.containsKey(to)) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
       return false;
     }
 
-    Set<T> visited = new HashSet<>();
-    return dfs(from, to, visited);
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    boolean found;
+    if (components != null) {
+      found = indexConnected(source, target);
+      event.report("connectivity-index", this, ids.size(), from, to, -1, found, null);
+    } else {
+      found = depthFirst(source, target);
+      event.report("dfs", this, ids.size(), from, to, -1, found, null);
+    }
+    return found;
+  }
+
+  // Låst eftersom både ombyggnaden och sökningen i UnionFind ändrar indexet
+  private synchronized boolean indexConnected(int source, int target) {
+    if (componentsStale) {
+      rebuildComponents();
+    }
+    connectivityHits++;
+    return components.connected(source, target);
   }
 
-  // Djupetförst sökning (DFS) hjälpmetod
-  private boolean dfs(T current, T target, Set<T> visited) {
-    if (current.equals(target)) {
-      return true;
+  public void setConnectivityIndexEnabled(boolean enabled) {
+    if (!enabled) {
+      components = null;
+    } else if (components == null) {
+      components = new UnionFind(nodes.size());
+      componentsStale = true;
     }
+  }
+
+  public boolean isConnectivityIndexEnabled() {
+    return components != null;
+  }
 
-    visited.add(current);
+  // Antal pathExists som besvarades av indexet
+  public synchronized long getConnectivityHits() {
+    return connectivityHits;
+  }
 
-    for (Edge<T> edge : adjacencyList.get(current)) {
-      T neighbor = edge.getDestination();
-      if (!visited.contains(neighbor)) {
-        if (dfs(neighbor, target, visited)) {
-          return true;
+  // Antal gånger indexet har byggts om efter disconnect eller remove
+  public synchronized long getConnectivityRebuilds() {
+    return connectivityRebuilds;
+  }
+
+  private void rebuildComponents() {
+    components.reset(nodes.size());
+    for (int id = 0; id < adjacencyList.size(); id++) {
+      List<Edge<T>> edges = adjacencyList.get(id);
+      if (edges != null) {
+        for (int i = 0; i < edges.size(); i++) {
+          components.union(id, edges.get(i).destinationId);
         }
       }
     }
-
-    return false;
+    componentsStale = false;
+    connectivityRebuilds++;
   }
 
   @Override
   public List<Edge<T>> getPath(T from, T to) {
-    if (!adjacencyList.containsKey(from) || !adjacencyList.containsKey(to)) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
       return null;
     }
 
-    Set<T> visited = new HashSet<>();
-    List<Edge<T>> path = new ArrayList<>();
-    if (dfsBuildPath(from, to, visited, path)) {
-      return path;
-    } else {
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    List<Edge<T>> path = depthFirst(source, target) ? buildPath(states.get(), target) : null;
+    event.report("dfs", this, ids.size(), from, to, -1, path);
+    return path;
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
       return null;
     }
+
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    List<Edge<T>> path = breadthFirst(source, target) ? buildPath(states.get(), target) : null;
+    event.report("bfs", this, ids.size(), from, to, -1, path);
+    return path;
   }
 
-  // Djupetförst sökning (DFS) hjälpmetod
-  private boolean dfsBuildPath(T current, T target, Set<T> visited, List<Edge<T>> path) {
-    if (current.equals(target)) {
-      return true;
+  // Djupetförst sökning (DFS) med explicit stack i stället för rekursion
+  private boolean depthFirst(int source, int target) {
+    SearchState s = states.get();
+    s.begin(nodes.size());
+    s.reach(source, 0, -1, -1);
+    s.stack[0] = source;
+    s.cursor[0] = 0;
+    int top = 1;
+
+    while (top > 0) {
+      int current = s.stack[top - 1];
+      if (current == target) {
+        return true;
+      }
+
+      List<Edge<T>> edges = adjacencyList.get(current);
+      int i = s.cursor[top - 1];
+      while (i < edges.size() && s.reached(edges.get(i).destinationId)) {
+        i++;
+      }
+      if (i == edges.size()) {
+        top--; // backtracka
+        continue;
+      }
+
+      s.cursor[top - 1] = i + 1;
+      int neighbor = edges.get(i).destinationId;
+      s.reach(neighbor, top, current, i);
+      s.stack[top] = neighbor;
+      s.cursor[top] = 0;
+      top++;
     }
 
-    visited.add(current);
+    return false;
+  }
 
-    for (Edge<T> edge : adjacencyList.get(current)) {
-      T neighbor = edge.getDestination();
-      if (!visited.contains(neighbor)) {
-        path.add(edge); // lägg till kanten i vägen
-        if (dfsBuildPath(neighbor, target, visited, path)) {
-          return true;
+  // Breddenförst sökning (BFS), ger vägen med minst antal bågar
+  private boolean breadthFirst(int source, int target) {
+    SearchState s = states.get();
+    s.begin(nodes.size());
+    s.reach(source, 0, -1, -1);
+    s.stack[0] = source;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail) {
+      int current = s.stack[head++];
+      if (current == target) {
+        return true;
+      }
+
+      List<Edge<T>> edges = adjacencyList.get(current);
+      for (int i = 0, n = edges.size(); i < n; i++) {
+        int neighbor = edges.get(i).destinationId;
+        if (!s.reached(neighbor)) {
+          s.reach(neighbor, s.dist[current] + 1, current, i);
+          s.stack[tail++] = neighbor;
         }
-        path.remove(path.size() - 1); // backtracka
       }
     }
 
     return false;
   }
 
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return findShortestPath(from, to).getEdges();
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    Integer source = ids.get(from);
+    Integer target = ids.get(to);
+    if (source == null || target == null) {
+      return new PathResult<>(null, 0);
+    }
+    return shortestPath(source, target, null);
+  }
+
+  // Uppskattning av återstående vikt till målet för A*, måste vara konsistent
+  interface Heuristic {
+    long estimate(int node);
+  }
+
+  // Bågar som en sökning inte får använda
+  interface Bans {
+    boolean blocks(int from, int to);
+  }
+
+  // Yens algoritm. Först beräknas avståndet till målet från alla noder; det är en exakt
+  // heuristik för A* i hela grafen och en giltig undre gräns när noder och bågar spärras,
+  // så varje spårsökning går nästan rakt mot målet. Noder som inte når målet spärras.
+  @Override
+  public List<List<Edge<T>>> getShortestPaths(T from, T to, int k) {
+    SearchState s = states.get();
+    long[][] remaining = new long[1][];
+    return KShortestPaths.find(from, to, k, (spur, target, bannedNodes, bannedNeighbors) -> {
+      Integer spurId = ids.get(spur);
+      Integer targetId = ids.get(target);
+      if (spurId == null || targetId == null) {
+        return null;
+      }
+      if (remaining[0] == null) {
+        remaining[0] = distancesFrom(targetId);
+      }
+      long[] toTarget = remaining[0];
+      if (toTarget[spurId] < 0) {
+        return null;
+      }
+      s.beginBans(nodes.size());
+      for (T node : bannedNodes) {
+        s.ban(ids.get(node));
+      }
+      int[] blocked = new int[bannedNeighbors.size()];
+      int count = 0;
+      for (T node : bannedNeighbors) {
+        blocked[count++] = ids.get(node);
+      }
+      return shortestPath(spurId, targetId, node -> toTarget[node], (a, b) -> {
+        if (s.isBanned(b) || toTarget[b] < 0) {
+          return true;
+        }
+        if (a == spurId) {
+          for (int id : blocked) {
+            if (id == b) {
+              return true;
+            }
+          }
+        }
+        return false;
+      }).getEdges();
+    });
+  }
+
+  // Avstånd från source till varje id, -1 om noden inte kan nås. Grafen är oriktad så det är
+  // också avståndet tillbaka till source.
+  private long[] distancesFrom(int source) {
+    shortestPath(source, -1, null, null);
+    SearchState s = states.get();
+    long[] distances = new long[nodes.size()];
+    for (int id = 0; id < distances.length; id++) {
+      distances[id] = s.reached(id) ? s.dist[id] : -1;
+    }
+    return distances;
+  }
+
+  // Dijkstra med radix heap, eller A* om en heuristik anges. Avbryts när målet tas ut ur kön.
+  PathResult<T> shortestPath(int source, int target, Heuristic heuristic) {
+    PathSearchEvent event = new PathSearchEvent();
+    event.begin();
+    PathResult<T> result = shortestPath(source, target, heuristic, null);
+    event.report(heuristic == null ? "dijkstra" : "astar", this, ids.size(), nodes.get(source), nodes.get(target),
+        result.getExpandedNodes(), result.getEdges());
+    return result;
+  }
+
+  private PathResult<T> shortestPath(int source, int target, Heuristic heuristic, Bans bans) {
+    SearchState s = states.get();
+    s.begin(nodes.size());
+    s.reach(source, 0, -1, -1);
+    s.heap.push(heuristic == null ? 0 : heuristic.estimate(source), source);
+    int expanded = 0;
+
+    while (!s.heap.isEmpty()) {
+      long key = s.heap.peekKey();
+      int current = s.heap.pop();
+      if (s.isClosed(current)) {
+        continue; // inaktuell post, noden har redan expanderats med kortare avstånd
+      }
+      if (current == target) {
+        return new PathResult<>(buildPath(s, target), expanded);
+      }
+      s.close(current);
+      expanded++;
+      long distance = s.dist[current];
+
+      List<Edge<T>> edges = adjacencyList.get(current);
+      for (int i = 0, n = edges.size(); i < n; i++) {
+        Edge<T> edge = edges.get(i);
+        int neighbor = edge.destinationId;
+        if (bans != null && bans.blocks(current, neighbor)) {
+          continue;
+        }
+        long candidate = distance + edge.getWeight();
+        if (!s.reached(neighbor) || (candidate < s.dist[neighbor] && !s.isClosed(neighbor))) {
+          s.reach(neighbor, candidate, current, i);
+          long priority = heuristic == null ? candidate : candidate + heuristic.estimate(neighbor);
+          s.heap.push(Math.max(priority, key), neighbor);
+        }
+      }
+    }
+
+    return new PathResult<>(null, expanded);
+  }
+
+  // Nodens id, -1 om den inte finns i grafen
+  int idOf(T node) {
+    Integer id = ids.get(node);
+    return id == null ? -1 : id;
+  }
+
+  // Största id som kan förekomma plus ett
+  int idCapacity() {
+    return nodes.size();
+  }
+
+  // Bågarna från noden med givet id, null om id:t är ledigt
+  List<Edge<T>> edgesAt(int id) {
+    return adjacencyList.get(id);
+  }
+
+  // Följ föräldrapekarna baklänges från målet
+  private List<Edge<T>> buildPath(SearchState s, int target) {
+    List<Edge<T>> path = new ArrayList<>();
+    for (int current = target; s.parent[current] >= 0; current = s.parent[current]) {
+      path.add(adjacencyList.get(s.parent[current]).get(s.parentEdge[current]));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
 }
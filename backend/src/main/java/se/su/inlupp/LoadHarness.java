@@ -0,0 +1,270 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+// Kör en blandning av läsningar och ändringar mot en graf och mäter tiden för varje anrop.
+// Operationerna väljs slumpvis efter sina vikter; nya noder skapas med nodeFactory och kopplas
+// till några befintliga noder, och bara de noderna tas bort igen, så att grafen behåller ungefär
+// sin storlek och varje borttagning har bågar att riva. Anrop som inte blev av, t.ex. REMOVE
+// utan egna noder eller CONNECT mellan redan kopplade noder, räknas som överhoppade och mäts
+// inte. Med fler trådar än en måste grafen vara trådsäker, t.ex. ConcurrentGraph eller
+// VersionedGraph.
+//
+// Från kommandoraden körs en genererad graf:
+//   java -cp backend/target/classes se.su.inlupp.LoadHarness GRID 100000 4 20000 1
+public final class LoadHarness<T> {
+
+  public enum Operation {
+    GET_EDGES_FROM, GET_EDGE_BETWEEN, PATH_EXISTS, SHORTEST_PATH, CONNECT, DISCONNECT, ADD, REMOVE
+  }
+
+  private static final int CONNECTIONS = 3; // bågar från varje ny nod
+
+  private final Graph<T> graph;
+  private final IntFunction<T> nodeFactory;
+  private final AtomicInteger created = new AtomicInteger();
+  private final int[] weights = new int[Operation.values().length];
+
+  public LoadHarness(Graph<T> graph, IntFunction<T> nodeFactory) {
+    this.graph = graph;
+    this.nodeFactory = nodeFactory;
+    setWeight(Operation.GET_EDGES_FROM, 40);
+    setWeight(Operation.GET_EDGE_BETWEEN, 20);
+    setWeight(Operation.PATH_EXISTS, 10);
+    setWeight(Operation.SHORTEST_PATH, 10);
+    setWeight(Operation.CONNECT, 8);
+    setWeight(Operation.DISCONNECT, 8);
+    setWeight(Operation.ADD, 2);
+    setWeight(Operation.REMOVE, 2);
+  }
+
+  // Hur ofta operationen väljs i förhållande till de andra; 0 stänger av den
+  public void setWeight(Operation operation, int weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Vikten får inte vara negativ.");
+    }
+    weights[operation.ordinal()] = weight;
+  }
+
+  public static final class Report {
+    private final EnumMap<Operation, LatencyHistogram> latencies;
+    private final long[] rejected;
+    private final long[] skipped;
+    private final long nanos;
+
+    Report(EnumMap<Operation, LatencyHistogram> latencies, long[] rejected, long[] skipped, long nanos) {
+      this.latencies = latencies;
+      this.rejected = rejected;
+      this.skipped = skipped;
+      this.nanos = nanos;
+    }
+
+    public LatencyHistogram getLatencies(Operation operation) {
+      return latencies.get(operation);
+    }
+
+    // Anrop som grafen avvisade med ett undantag, t.ex. när två trådar kopplade samma par
+    public long getRejected(Operation operation) {
+      return rejected[operation.ordinal()];
+    }
+
+    // Anrop som valdes men inte blev av och därför inte finns i latenserna
+    public long getSkipped(Operation operation) {
+      return skipped[operation.ordinal()];
+    }
+
+    public long getOperations() {
+      long total = 0;
+      for (LatencyHistogram histogram : latencies.values()) {
+        total += histogram.getCount();
+      }
+      return total;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    public double getOperationsPerSecond() {
+      return nanos == 0 ? 0 : getOperations() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+          "%d anrop på %.2f s, %.0f anrop/s%n%-17s %10s %10s %10s %10s %8s %8s%n", getOperations(), nanos / 1e9,
+          getOperationsPerSecond(), "operation", "antal", "p50 µs", "p99 µs", "max µs", "avvisade", "överhopp"));
+      for (Operation operation : Operation.values()) {
+        LatencyHistogram histogram = latencies.get(operation);
+        if (histogram.getCount() > 0 || skipped[operation.ordinal()] > 0) {
+          text.append(String.format(Locale.ROOT, "%-17s %10d %10.1f %10.1f %10.1f %8d %8d%n", operation,
+              histogram.getCount(), histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+              histogram.getMax() / 1e3, rejected[operation.ordinal()], skipped[operation.ordinal()]));
+        }
+      }
+      return text.toString();
+    }
+  }
+
+  // Kör operations anrop fördelade på threads trådar
+  public Report run(int operations, int threads, long seed) throws InterruptedException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Det måste finnas minst en tråd.");
+    }
+    int totalWeight = Arrays.stream(weights).sum();
+    if (totalWeight == 0) {
+      throw new IllegalStateException("Minst en operation måste ha en vikt.");
+    }
+    List<T> existing = new ArrayList<>(graph.getNodes());
+    if (existing.isEmpty()) {
+      throw new IllegalStateException("Grafen har inga noder.");
+    }
+
+    EnumMap<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new LatencyHistogram());
+    }
+    AtomicLongArray rejected = new AtomicLongArray(weights.length);
+    AtomicLongArray skipped = new AtomicLongArray(weights.length);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int share = operations / threads + (t < operations % threads ? 1 : 0);
+      Random random = new Random(seed + t);
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        Worker work = new Worker(random, existing);
+        for (int i = 0; i < share; i++) {
+          Operation operation = pick(random, totalWeight);
+          long begin = System.nanoTime();
+          boolean performed = true;
+          try {
+            performed = work.perform(operation);
+          } catch (IllegalStateException | NoSuchElementException e) {
+            rejected.incrementAndGet(operation.ordinal());
+          }
+          long elapsed = System.nanoTime() - begin;
+          if (performed) {
+            latencies.get(operation).record(elapsed);
+          } else {
+            skipped.incrementAndGet(operation.ordinal());
+          }
+        }
+      }, "load-" + t);
+      worker.start();
+      workers.add(worker);
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long nanos = System.nanoTime() - begin;
+
+    long[] rejections = new long[weights.length];
+    long[] skips = new long[weights.length];
+    for (int i = 0; i < rejections.length; i++) {
+      rejections[i] = rejected.get(i);
+      skips[i] = skipped.get(i);
+    }
+    return new Report(latencies, rejections, skips, nanos);
+  }
+
+  private Operation pick(Random random, int totalWeight) {
+    int value = random.nextInt(totalWeight);
+    for (Operation operation : Operation.values()) {
+      value -= weights[operation.ordinal()];
+      if (value < 0) {
+        return operation;
+      }
+    }
+    throw new AssertionError();
+  }
+
+  // En tråds slumptal och de noder tråden själv har lagt till. Andra trådar väljer aldrig de
+  // noderna, så de kan kopplas och tas bort utan att någon annan hinner emellan.
+  private final class Worker {
+    final Random random;
+    final List<T> existing;
+    final List<T> added = new ArrayList<>();
+
+    Worker(Random random, List<T> existing) {
+      this.random = random;
+      this.existing = existing;
+    }
+
+    T anyNode() {
+      return existing.get(random.nextInt(existing.size()));
+    }
+
+    // Svarar false om anropet inte blev av
+    boolean perform(Operation operation) {
+      switch (operation) {
+        case GET_EDGES_FROM -> graph.getEdgesFrom(anyNode());
+        case GET_EDGE_BETWEEN -> {
+          T node = anyNode();
+          Collection<Edge<T>> edges = graph.getEdgesFrom(node);
+          graph.getEdgeBetween(node, edges.isEmpty() ? anyNode() : edges.iterator().next().getDestination());
+        }
+        case PATH_EXISTS -> graph.pathExists(anyNode(), anyNode());
+        case SHORTEST_PATH -> graph.findShortestPath(anyNode(), anyNode());
+        case CONNECT -> {
+          T from = anyNode();
+          T to = anyNode();
+          if (from.equals(to) || graph.getEdgeBetween(from, to) != null) {
+            return false;
+          }
+          graph.connect(from, to, "last", 1 + random.nextInt(100));
+        }
+        case DISCONNECT -> {
+          T node = anyNode();
+          Collection<Edge<T>> edges = graph.getEdgesFrom(node);
+          if (edges.isEmpty()) {
+            return false;
+          }
+          graph.disconnect(node, edges.iterator().next().getDestination());
+        }
+        case ADD -> {
+          T node = nodeFactory.apply(created.getAndIncrement());
+          graph.add(node);
+          added.add(node);
+          for (int i = 0; i < CONNECTIONS; i++) {
+            T to = anyNode();
+            if (graph.getEdgeBetween(node, to) == null) {
+              graph.connect(node, to, "last", 1 + random.nextInt(100));
+            }
+          }
+        }
+        case REMOVE -> {
+          if (added.isEmpty()) {
+            return false;
+          }
+          graph.remove(added.remove(added.size() - 1));
+        }
+      }
+      return true;
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length != 5) {
+      System.err.println("Användning: LoadHarness GEOMETRIC|GRID|SCALE_FREE|CHAIN antal grad anrop trådar");
+      System.exit(1);
+    }
+    int threads = Integer.parseInt(args[4]);
+    Graph<String> graph = threads > 1 ? new ConcurrentGraph<>() : new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.valueOf(args[0]), Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]), 42).generate(graph);
+    LoadHarness<String> harness = new LoadHarness<>(graph, i -> "last-" + i);
+    System.out.print(harness.run(Integer.parseInt(args[3]), threads, 42));
+  }
+}
@@ -0,0 +1,60 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Vilka transportsätt en vägsökning i CsrGraph får använda. Transportsättet är bågens namn,
+// t.ex. "Train", "Airplane" och "Boat" i europa.graph, så ModeFilter.forbid("Airplane") ger en
+// resa utan flyg. Namnen slås upp i grafens namntabell en gång per sökning och blir en
+// bitmängd över namnens nummer; själva sökningen jämför aldrig strängar.
+public final class ModeFilter {
+  public static final ModeFilter ALL = new ModeFilter(Set.of(), false);
+
+  private final Set<String> modes;
+  private final boolean allow; // true: bara modes, false: allt utom modes
+
+  private ModeFilter(Set<String> modes, boolean allow) {
+    this.modes = modes;
+    this.allow = allow;
+  }
+
+  public static ModeFilter allow(String... modes) {
+    return allow(Arrays.asList(modes));
+  }
+
+  public static ModeFilter allow(Collection<String> modes) {
+    return new ModeFilter(Set.copyOf(modes), true);
+  }
+
+  public static ModeFilter forbid(String... modes) {
+    return forbid(Arrays.asList(modes));
+  }
+
+  public static ModeFilter forbid(Collection<String> modes) {
+    return new ModeFilter(Set.copyOf(modes), false);
+  }
+
+  // En båge utan namn matchar inget transportsätt: allow släpper aldrig igenom den, forbid alltid
+  public boolean permits(String mode) {
+    return (mode != null && modes.contains(mode)) == allow;
+  }
+
+  // Tillåtna namnnummer som bitmängd, bit id % 64 i ord id / 64. Ger null när filtret
+  // släpper igenom alla namn i tabellen, så att sökningen kan hoppa över kontrollen helt.
+  long[] resolve(String[] nameTable) {
+    long[] allowed = new long[(nameTable.length + 63) >>> 6];
+    boolean all = true;
+    for (int id = 0; id < nameTable.length; id++) {
+      if (permits(nameTable[id])) {
+        allowed[id >>> 6] |= 1L << id;
+      } else {
+        all = false;
+      }
+    }
+    return all ? null : allowed;
+  }
+
+  @Override
+  public String toString() {
+    return (allow ? "allow " : "forbid ") + new TreeSet<>(modes);
+  }
+}
@@ -0,0 +1,111 @@
+package se.su.inlupp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Internerar namn direkt från UTF-8-byte. Ett namn som redan finns i tabellen ger samma
+// String-objekt igen utan att något allokeras; bara nya namn avkodas. Namnen numreras i den
+// ordning de läggs till. Uppslagningar ändrar inget och kan göras från flera trådar när
+// tabellen inte längre fylls på.
+final class NameTable {
+  private byte[][] keys = new byte[64][];
+  private String[] names = new String[64];
+  private int[] hashes = new int[64];
+  private int[] ids = new int[64];
+  private String[] byId = new String[32];
+  private int size;
+
+  static int hash(byte[] buffer, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + buffer[i];
+    }
+    return h ^ (h >>> 16);
+  }
+
+  String intern(byte[] buffer, int start, int end) {
+    int id = internId(buffer, start, end);
+    return byId[id];
+  }
+
+  // Som intern men ger namnets nummer
+  int internId(byte[] buffer, int start, int end) {
+    int hash = hash(buffer, start, end);
+    int mask = keys.length - 1;
+    int i = hash & mask;
+    while (keys[i] != null) {
+      if (hashes[i] == hash && Arrays.equals(keys[i], 0, keys[i].length, buffer, start, end)) {
+        return ids[i];
+      }
+      i = (i + 1) & mask;
+    }
+    String name = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    keys[i] = Arrays.copyOfRange(buffer, start, end);
+    names[i] = name;
+    hashes[i] = hash;
+    ids[i] = size;
+    if (size == byId.length) {
+      byId = Arrays.copyOf(byId, size * 2);
+    }
+    byId[size] = name;
+    if (++size * 2 > keys.length) {
+      resize();
+    }
+    return size - 1;
+  }
+
+  // Slår upp ett namn utan att lägga till det, null om det saknas
+  String lookup(byte[] buffer, int start, int end) {
+    int slot = slot(buffer, start, end);
+    return slot < 0 ? null : names[slot];
+  }
+
+  // Namnets nummer utan att lägga till det, -1 om det saknas
+  int lookupId(byte[] buffer, int start, int end) {
+    int slot = slot(buffer, start, end);
+    return slot < 0 ? -1 : ids[slot];
+  }
+
+  private int slot(byte[] buffer, int start, int end) {
+    int hash = hash(buffer, start, end);
+    int mask = keys.length - 1;
+    for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+      if (hashes[i] == hash && Arrays.equals(keys[i], 0, keys[i].length, buffer, start, end)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  String name(int id) {
+    return byId[id];
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void resize() {
+    byte[][] oldKeys = keys;
+    String[] oldNames = names;
+    int[] oldHashes = hashes;
+    int[] oldIds = ids;
+    keys = new byte[oldKeys.length * 2][];
+    names = new String[keys.length];
+    hashes = new int[keys.length];
+    ids = new int[keys.length];
+    int mask = keys.length - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != null) {
+        int i = oldHashes[j] & mask;
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        names[i] = oldNames[j];
+        hashes[i] = oldHashes[j];
+        ids[i] = oldIds[j];
+      }
+    }
+  }
+}
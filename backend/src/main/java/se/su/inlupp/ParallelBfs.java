@@ -0,0 +1,237 @@
+package se.su.inlupp;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+// Breddenförst sökning nivå för nivå över en CsrGraph, parallellt i en fork-join-pool.
+//
+// Varje nivå expanderas på ett av två sätt. Uppifrån och ned ligger fronten i en kö av nod-id;
+// fronten delas upp mellan deluppgifterna, som går igenom sina noders bågar och tar obesökta
+// grannar med compare-and-set på besöktbiten. En nivå kostar då bara frontens bågar, så även
+// grafer med stor diameter (kedjor, vägnät) går i linjär tid. Nedifrån och upp ligger fronten
+// i en bitmängd och varje obesökt nod går igenom sina bågar tills den hittar en granne i
+// fronten; det lönar sig när fronten är stor, eftersom de flesta noder hittar en förälder
+// efter några få bågar. Bytet styrs av antalet bågar från fronten mot antalet bågar från
+// obesökta noder (Beamer m.fl.), och bara vid bytet görs fronten om mellan kö och bitmängd.
+//
+// Nedifrån och upp läser nodens egna bågar som inkommande, vilket stämmer eftersom grafernas
+// förbindelser alltid går åt båda hållen.
+public final class ParallelBfs {
+  public static final int UNREACHED = -1;
+
+  // Byt till nedifrån och upp när frontens bågar är fler än de obesöktas genom ALPHA,
+  // och tillbaka när fronten har färre än nodeCount / BETA noder
+  private static final int ALPHA = 14;
+  private static final int BETA = 24;
+  private static final int WORDS_PER_TASK = 256; // 16 384 noder per deluppgift nedifrån och upp
+  private static final int NODES_PER_TASK = 4096; // frontnoder per deluppgift uppifrån och ned
+
+  private ParallelBfs() {
+  }
+
+  public static <T> int[] distances(CsrGraph<T> graph, T source) {
+    int id = graph.indexOf(source);
+    if (id < 0) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    return distances(graph, id, ForkJoinPool.commonPool());
+  }
+
+  // Noderna som en deluppgift lägger till i nästa front uppifrån och ned. Återanvänds mellan nivåerna.
+  private static final class Buffer {
+    int[] nodes = new int[64];
+    int size;
+    long edges; // summan av nodernas grad
+
+    void add(int node) {
+      if (size == nodes.length) {
+        nodes = Arrays.copyOf(nodes, size * 2);
+      }
+      nodes[size++] = node;
+    }
+  }
+
+  // Antal bågar från source till varje nod, indexerat på nodernas id i grafen.
+  // UNREACHED för noder som inte kan nås.
+  public static int[] distances(CsrGraph<?> graph, int source, ForkJoinPool pool) {
+    int n = graph.nodeCount();
+    if (source < 0 || source >= n) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    int[] offsets = graph.offsets;
+    int[] targets = graph.targets;
+    int words = (n + 63) >>> 6;
+    int wordTasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+
+    int[] distance = new int[n];
+    Arrays.fill(distance, UNREACHED);
+    AtomicLongArray visited = new AtomicLongArray(words);
+    AtomicLongArray frontier = new AtomicLongArray(words); // bara nedifrån och upp, annars tom
+    AtomicLongArray next = new AtomicLongArray(words);
+    long[] counts = new long[2 * wordTasks]; // noder och bågar i nästa front per deluppgift
+    int[] queue = new int[n];
+    int[] nextQueue = new int[n];
+    Buffer[] buffers = new Buffer[(n + NODES_PER_TASK - 1) / NODES_PER_TASK];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = new Buffer();
+    }
+
+    distance[source] = 0;
+    visited.set(source >>> 6, 1L << source);
+    queue[0] = source;
+    int queueSize = 1;
+    long frontierNodes = 1;
+    long frontierEdges = degree(offsets, source);
+    long unvisitedEdges = targets.length - frontierEdges;
+    boolean bottomUp = false;
+
+    for (int level = 0; frontierNodes > 0; level++) {
+      if (!bottomUp && frontierEdges > unvisitedEdges / ALPHA) {
+        bottomUp = true;
+        for (int i = 0; i < queueSize; i++) {
+          frontier.setPlain(queue[i] >>> 6, frontier.getPlain(queue[i] >>> 6) | 1L << queue[i]);
+        }
+      } else if (bottomUp && frontierNodes < n / BETA) {
+        bottomUp = false;
+        queueSize = 0;
+        for (int word = 0; word < words; word++) {
+          long bits = frontier.getPlain(word);
+          while (bits != 0) {
+            queue[queueSize++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+          }
+          frontier.setPlain(word, 0);
+          next.setPlain(word, 0);
+        }
+      }
+
+      int depth = level + 1;
+      if (bottomUp) {
+        AtomicLongArray current = frontier;
+        AtomicLongArray following = next;
+        pool.submit(() -> IntStream.range(0, wordTasks).parallel().forEach(task -> {
+          int from = task * WORDS_PER_TASK;
+          int to = Math.min(words, from + WORDS_PER_TASK);
+          bottomUpStep(offsets, targets, n, from, to, depth, distance, visited, current, following, counts, task);
+        })).join();
+
+        frontierNodes = 0;
+        frontierEdges = 0;
+        for (int task = 0; task < wordTasks; task++) {
+          frontierNodes += counts[2 * task];
+          frontierEdges += counts[2 * task + 1];
+        }
+        // Nästa front skrevs ord för ord över hela bitmängden, så den gamla behöver inte tömmas
+        AtomicLongArray swap = frontier;
+        frontier = next;
+        next = swap;
+      } else {
+        int[] current = queue;
+        int size = queueSize;
+        int tasks = (size + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        if (tasks == 1) {
+          topDownStep(offsets, targets, current, 0, size, depth, distance, visited, buffers[0]);
+        } else {
+          pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(task -> {
+            int from = task * NODES_PER_TASK;
+            int to = Math.min(size, from + NODES_PER_TASK);
+            topDownStep(offsets, targets, current, from, to, depth, distance, visited, buffers[task]);
+          })).join();
+        }
+
+        queueSize = 0;
+        frontierEdges = 0;
+        for (int task = 0; task < tasks; task++) {
+          Buffer buffer = buffers[task];
+          System.arraycopy(buffer.nodes, 0, nextQueue, queueSize, buffer.size);
+          queueSize += buffer.size;
+          frontierEdges += buffer.edges;
+        }
+        frontierNodes = queueSize;
+        int[] swap = queue;
+        queue = nextQueue;
+        nextQueue = swap;
+      }
+      unvisitedEdges -= frontierEdges;
+    }
+
+    return distance;
+  }
+
+  // Noderna queue[from, to) går igenom sina bågar. Grannarna kan ligga var som helst, så
+  // besöktbitarna sätts atomärt; den som tar en granne lägger den i sin egen buffer.
+  private static void topDownStep(int[] offsets, int[] targets, int[] queue, int from, int to, int depth,
+      int[] distance, AtomicLongArray visited, Buffer out) {
+    out.size = 0;
+    out.edges = 0;
+    for (int i = from; i < to; i++) {
+      int node = queue[i];
+      for (int edge = offsets[node], end = offsets[node + 1]; edge < end; edge++) {
+        int neighbor = targets[edge];
+        if ((visited.getPlain(neighbor >>> 6) & (1L << neighbor)) == 0 && claim(visited, neighbor)) {
+          distance[neighbor] = depth;
+          out.add(neighbor);
+          out.edges += degree(offsets, neighbor);
+        }
+      }
+    }
+  }
+
+  // Varje obesökt nod i orden [from, to) letar efter en granne i fronten. Orden hör bara
+  // till den här deluppgiften, så bitarna kan skrivas utan compare-and-set.
+  private static void bottomUpStep(int[] offsets, int[] targets, int n, int from, int to, int depth,
+      int[] distance, AtomicLongArray visited, AtomicLongArray frontier, AtomicLongArray next, long[] counts,
+      int task) {
+    long nodes = 0;
+    long edges = 0;
+    for (int word = from; word < to; word++) {
+      long unvisited = ~visited.getPlain(word);
+      if (word == (n - 1) >>> 6 && (n & 63) != 0) {
+        unvisited &= (1L << n) - 1; // bitar efter sista noden
+      }
+      long found = 0;
+      while (unvisited != 0) {
+        int node = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+        unvisited &= unvisited - 1;
+        for (int edge = offsets[node], end = offsets[node + 1]; edge < end; edge++) {
+          int neighbor = targets[edge];
+          if ((frontier.getPlain(neighbor >>> 6) & (1L << neighbor)) != 0) {
+            distance[node] = depth;
+            found |= 1L << node;
+            nodes++;
+            edges += degree(offsets, node);
+            break;
+          }
+        }
+      }
+      if (found != 0) {
+        visited.setPlain(word, visited.getPlain(word) | found);
+      }
+      next.setPlain(word, found);
+    }
+    counts[2 * task] = nodes;
+    counts[2 * task + 1] = edges;
+  }
+
+  // Sätter nodens bit och svarar true om den inte var satt förut
+  private static boolean claim(AtomicLongArray bits, int node) {
+    int word = node >>> 6;
+    long mask = 1L << node;
+    long old = bits.get(word);
+    while ((old & mask) == 0) {
+      long witness = bits.compareAndExchange(word, old, old | mask);
+      if (witness == old) {
+        return true;
+      }
+      old = witness;
+    }
+    return false;
+  }
+
+  private static long degree(int[] offsets, int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+}
@@ -0,0 +1,427 @@
+package se.su.inlupp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Läser stora .graph-filer parallellt. Bildraden och nodraden läses först av en tråd; sedan
+// delas förbindelserna upp i byteintervall som börjar och slutar på radgränser och tolkas
+// var för sig i en fork-join-pool. Varje del samlar sina bågar i egna int-arrayer och har
+// en egen tabell för bågnamn, så delarna delar inget skrivbart tillstånd. Till sist slås
+// alla delar ihop till en CsrGraph i ett enda steg.
+//
+// Resultatet blir samma graf som GraphIO.read ger: förbindelserna är oriktade och den första
+// raden mellan två noder gäller, oavsett om den står åt ena eller andra hållet. En förbindelse
+// från en nod till sig själv blir två bågar hos noden, som när ListGraph.connect lägger in
+// den. Markeringen #undirected känns igen med GraphIO.isUndirectedMarker och bara som första
+// förbindelserad; alla andra rader är förbindelser. Efter markeringen får varje par bara stå
+// en gång, och precis som i GraphIO.read blir en dubblett ett formatfel.
+public final class ParallelGraphLoader {
+  static final int MIN_CHUNK_BYTES = 1 << 20;
+  private static final int WINDOW_BYTES = 1 << 12;
+
+  private final ForkJoinPool pool;
+  private final int minChunkBytes;
+
+  public ParallelGraphLoader() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ParallelGraphLoader(ForkJoinPool pool) {
+    this(pool, MIN_CHUNK_BYTES);
+  }
+
+  // Mindre delar används i testerna för att få många delar av små filer
+  ParallelGraphLoader(ForkJoinPool pool, int minChunkBytes) {
+    this.pool = pool;
+    this.minChunkBytes = minChunkBytes;
+  }
+
+  // Resultatet av en inläsning, med tider för att kunna följa genomströmningen
+  public static final class Result {
+    private final String imagePath;
+    private final CsrGraph<String> graph;
+    private final long records;
+    private final int chunks;
+    private final long parseNanos;
+    private final long totalNanos;
+
+    Result(String imagePath, CsrGraph<String> graph, long records, int chunks, long parseNanos, long totalNanos) {
+      this.imagePath = imagePath;
+      this.graph = graph;
+      this.records = records;
+      this.chunks = chunks;
+      this.parseNanos = parseNanos;
+      this.totalNanos = totalNanos;
+    }
+
+    public String getImagePath() {
+      return imagePath;
+    }
+
+    public CsrGraph<String> getGraph() {
+      return graph;
+    }
+
+    // Antal förbindelserader i filen
+    public long getRecords() {
+      return records;
+    }
+
+    public int getChunks() {
+      return chunks;
+    }
+
+    // Tid för den parallella tolkningen av förbindelserna
+    public long getParseNanos() {
+      return parseNanos;
+    }
+
+    // Tid för hela inläsningen, inklusive nodraden och sammanslagningen
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public double getEdgesPerSecond() {
+      return parseNanos == 0 ? 0 : records * 1e9 / parseNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%d förbindelser i %d delar, %.0f förbindelser/s, totalt %.1f ms",
+          records, chunks, getEdgesPerSecond(), totalNanos / 1e6);
+    }
+  }
+
+  // Bågarna från en del av filen, i den ordning de stod
+  private static final class Chunk {
+    int[] from = new int[1024];
+    int[] to = new int[1024];
+    int[] weight = new int[1024];
+    int[] name = new int[1024]; // index i chunkens egen namntabell
+    int size;
+    final NameTable names = new NameTable();
+
+    void add(int source, int target, int weight, int name) {
+      if (size == from.length) {
+        int capacity = size * 2;
+        this.from = Arrays.copyOf(this.from, capacity);
+        this.to = Arrays.copyOf(this.to, capacity);
+        this.weight = Arrays.copyOf(this.weight, capacity);
+        this.name = Arrays.copyOf(this.name, capacity);
+      }
+      this.from[size] = source;
+      this.to[size] = target;
+      this.weight[size] = weight;
+      this.name[size] = name;
+      size++;
+    }
+  }
+
+  public Result load(Path file) throws IOException {
+    GraphLoadEvent event = new GraphLoadEvent();
+    event.begin();
+    long startTime = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      LineReader reader = new LineReader(channel, GraphIO.BUFFER_SIZE);
+      if (!reader.nextLine()) {
+        throw new IOException("Sökväg till bilden saknas i filen.");
+      }
+      String imagePath = reader.line().trim();
+      if (!reader.nextLine()) {
+        throw new IOException("Noder saknas i filen.");
+      }
+
+      NameTable nodes = new NameTable();
+      double[][] positions = readNodes(reader, nodes);
+      long edgeStart = reader.position();
+      boolean undirected = false;
+      while (reader.nextLine()) {
+        int start = GraphIO.trimStart(reader.buffer(), reader.lineStart(), reader.lineEnd());
+        int end = GraphIO.trimEnd(reader.buffer(), start, reader.lineEnd());
+        if (start < end) {
+          if (GraphIO.isUndirectedMarker(reader.buffer(), start, end)) {
+            edgeStart = reader.position();
+            undirected = true;
+          }
+          break;
+        }
+      }
+      long[] bounds = split(channel, edgeStart, channel.size());
+
+      long parseStart = System.nanoTime();
+      List<Callable<Chunk>> tasks = new ArrayList<>(bounds.length - 1);
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        long from = bounds[i];
+        long to = bounds[i + 1];
+        tasks.add(() -> parse(channel, from, to, nodes));
+      }
+      List<Chunk> chunks = new ArrayList<>(tasks.size());
+      for (Future<Chunk> future : pool.invokeAll(tasks)) {
+        chunks.add(join(future));
+      }
+      long parseNanos = System.nanoTime() - parseStart;
+
+      CsrGraph<String> graph = merge(nodes, positions, chunks, undirected);
+      long records = 0;
+      for (Chunk chunk : chunks) {
+        records += chunk.size;
+      }
+      event.report(file, "text", channel.size(), graph.nodeCount(), records);
+      return new Result(imagePath, graph, records, chunks.size(), parseNanos, System.nanoTime() - startTime);
+    }
+  }
+
+  private static Chunk join(Future<Chunk> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Inläsningen avbröts.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  // Nodraden: namnen numreras i tabellen, positionerna hamnar på samma index
+  private static double[][] readNodes(LineReader reader, NameTable nodes) throws IOException {
+    double[] xs = new double[16];
+    double[] ys = new double[16];
+    GraphTokenizer tokenizer = new GraphTokenizer();
+    byte[] buffer = reader.buffer();
+    int start = GraphIO.trimStart(buffer, reader.lineStart(), reader.lineEnd());
+    int end = GraphIO.trimEnd(buffer, start, reader.lineEnd());
+    if (start < end) {
+      tokenizer.reset(buffer, start, end);
+      int triples = tokenizer.fieldCount() / 3;
+      try {
+        for (int i = 0; i < triples; i++) {
+          int id = tokenizer.nextNameId(nodes);
+          if (id == xs.length) {
+            xs = Arrays.copyOf(xs, id * 2);
+            ys = Arrays.copyOf(ys, id * 2);
+          }
+          xs[id] = tokenizer.nextDouble();
+          ys[id] = tokenizer.nextDouble();
+        }
+      } catch (NumberFormatException | NoSuchElementException e) {
+        throw new IOException("Fel format på rad " + reader.lineNumber() + ": " + reader.line(), e);
+      }
+    }
+    return new double[][] {Arrays.copyOf(xs, nodes.size()), Arrays.copyOf(ys, nodes.size())};
+  }
+
+  // Delar [from, to) i ungefär lika stora intervall som alla slutar direkt efter ett radslut
+  private long[] split(FileChannel channel, long from, long to) throws IOException {
+    long length = to - from;
+    long target = Math.max(minChunkBytes, length / (pool.getParallelism() * 4L) + 1);
+    target = Math.min(target, Integer.MAX_VALUE - WINDOW_BYTES);
+    List<Long> bounds = new ArrayList<>();
+    bounds.add(from);
+    long position = from;
+    ByteBuffer window = ByteBuffer.allocate(WINDOW_BYTES);
+    while (to - position > target) {
+      long next = lineEnd(channel, position + target, to, window);
+      if (next >= to) {
+        break;
+      }
+      bounds.add(next);
+      position = next;
+    }
+    bounds.add(to);
+    return bounds.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  // Positionen direkt efter första radslutet från och med position, eller to om det saknas
+  private static long lineEnd(FileChannel channel, long position, long to, ByteBuffer window) throws IOException {
+    while (position < to) {
+      window.clear();
+      int read = channel.read(window, position);
+      if (read <= 0) {
+        return to;
+      }
+      for (int i = 0; i < read; i++) {
+        if (window.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return to;
+  }
+
+  private static Chunk parse(FileChannel channel, long from, long to, NameTable nodes) throws IOException {
+    byte[] buffer = new byte[(int) (to - from)];
+    ByteBuffer target = ByteBuffer.wrap(buffer);
+    while (target.hasRemaining()) {
+      if (channel.read(target, from + target.position()) < 0) {
+        throw new IOException("Filen ändrades under inläsningen.");
+      }
+    }
+
+    Chunk chunk = new Chunk();
+    GraphTokenizer tokenizer = new GraphTokenizer();
+    int lineStart = 0;
+    while (lineStart < buffer.length) {
+      int lineEnd = lineStart;
+      while (lineEnd < buffer.length && buffer[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      int next = lineEnd + 1;
+      if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+        lineEnd--;
+      }
+      int start = GraphIO.trimStart(buffer, lineStart, lineEnd);
+      int end = GraphIO.trimEnd(buffer, start, lineEnd);
+      if (start < end) {
+        tokenizer.reset(buffer, start, end);
+        try {
+          if (tokenizer.fieldCount() != 4) {
+            throw new IllegalStateException("En förbindelse ska ha fyra fält.");
+          }
+          int source = tokenizer.nextKnownId(nodes);
+          int destination = tokenizer.nextKnownId(nodes);
+          if (source < 0 || destination < 0) {
+            throw new IllegalStateException("En eller båda noder saknas i grafen.");
+          }
+          int name = tokenizer.nextNameId(chunk.names);
+          int weight = tokenizer.nextInt();
+          if (weight < 0) {
+            throw new IllegalStateException("Vikten får inte vara negativ.");
+          }
+          chunk.add(source, destination, weight, name);
+        } catch (NumberFormatException | NoSuchElementException | IllegalStateException e) {
+          throw new IOException("Fel format vid byte " + (from + lineStart) + ": "
+              + new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8), e);
+        }
+      }
+      lineStart = next;
+    }
+    return chunk;
+  }
+
+  // Bygger CSR-arrayerna av alla delar. Varje förbindelse läggs in åt båda hållen i filens
+  // ordning, även en ögla; därefter sorteras varje rad på målnod och bara den första
+  // förbindelsen till varje granne behålls, för en ögla alltså dess två första bågar. Med
+  // undirected är en båge utöver dem en dubblett i filen och ger IOException.
+  private CsrGraph<String> merge(NameTable nodes, double[][] positions, List<Chunk> chunks, boolean undirected)
+      throws IOException {
+    int nodeCount = nodes.size();
+
+    // Chunkarnas namnnummer översätts till en gemensam namntabell
+    Map<String, Integer> nameIds = new HashMap<>();
+    List<String> nameTable = new ArrayList<>();
+    int[][] translations = new int[chunks.size()][];
+    for (int c = 0; c < chunks.size(); c++) {
+      NameTable local = chunks.get(c).names;
+      int[] translation = new int[local.size()];
+      for (int i = 0; i < translation.length; i++) {
+        translation[i] = nameIds.computeIfAbsent(local.name(i), name -> {
+          nameTable.add(name);
+          return nameTable.size() - 1;
+        });
+      }
+      translations[c] = translation;
+    }
+
+    int[] offsets = new int[nodeCount + 1];
+    for (Chunk chunk : chunks) {
+      for (int i = 0; i < chunk.size; i++) {
+        offsets[chunk.from[i] + 1]++;
+        offsets[chunk.to[i] + 1]++;
+      }
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+
+    int[] targets = new int[offsets[nodeCount]];
+    int[] weights = new int[targets.length];
+    int[] names = new int[targets.length];
+    int[] fill = Arrays.copyOf(offsets, nodeCount);
+    for (int c = 0; c < chunks.size(); c++) {
+      Chunk chunk = chunks.get(c);
+      int[] translation = translations[c];
+      for (int i = 0; i < chunk.size; i++) {
+        int source = chunk.from[i];
+        int destination = chunk.to[i];
+        int name = translation[chunk.name[i]];
+        int position = fill[source]++;
+        targets[position] = destination;
+        weights[position] = chunk.weight[i];
+        names[position] = name;
+        position = fill[destination]++;
+        targets[position] = source;
+        weights[position] = chunk.weight[i];
+        names[position] = name;
+      }
+    }
+
+    // Sortera och ta bort dubbletter rad för rad; raderna är oberoende och görs parallellt
+    int[] kept = new int[nodeCount];
+    AtomicLong duplicate = new AtomicLong(-1); // nod << 32 | granne för en dubblett
+    pool.submit(() -> IntStream.range(0, nodeCount).parallel().forEach(node -> {
+      int from = offsets[node];
+      int to = offsets[node + 1];
+      CsrGraph.sortRow(from, to, targets, weights, names);
+      int write = from;
+      int run = 0; // bågar hittills till samma granne
+      for (int edge = from; edge < to; edge++) {
+        run = edge > from && targets[edge] == targets[edge - 1] ? run + 1 : 0;
+        if (run < (targets[edge] == node ? 2 : 1)) {
+          targets[write] = targets[edge];
+          weights[write] = weights[edge];
+          names[write] = names[edge];
+          write++;
+        } else if (undirected) {
+          duplicate.compareAndSet(-1, (long) node << 32 | targets[edge]);
+        }
+      }
+      kept[node] = write - from;
+    })).join();
+    if (duplicate.get() >= 0) {
+      throw new IOException("Fel format: förbindelsen mellan " + nodes.name((int) (duplicate.get() >>> 32)) + " och "
+          + nodes.name((int) duplicate.get()) + " står mer än en gång.");
+    }
+
+    int[] compactOffsets = new int[nodeCount + 1];
+    for (int i = 0; i < nodeCount; i++) {
+      compactOffsets[i + 1] = compactOffsets[i] + kept[i];
+    }
+    if (compactOffsets[nodeCount] != targets.length) {
+      int[] compactTargets = new int[compactOffsets[nodeCount]];
+      int[] compactWeights = new int[compactTargets.length];
+      int[] compactNames = new int[compactTargets.length];
+      for (int i = 0; i < nodeCount; i++) {
+        System.arraycopy(targets, offsets[i], compactTargets, compactOffsets[i], kept[i]);
+        System.arraycopy(weights, offsets[i], compactWeights, compactOffsets[i], kept[i]);
+        System.arraycopy(names, offsets[i], compactNames, compactOffsets[i], kept[i]);
+      }
+      return build(nodes, positions, compactOffsets, compactTargets, compactWeights, compactNames, nameTable);
+    }
+    return build(nodes, positions, offsets, targets, weights, names, nameTable);
+  }
+
+  private static CsrGraph<String> build(NameTable nodes, double[][] positions, int[] offsets, int[] targets,
+      int[] weights, int[] names, List<String> nameTable) {
+    Object[] nodeArray = new Object[nodes.size()];
+    for (int i = 0; i < nodeArray.length; i++) {
+      nodeArray[i] = nodes.name(i);
+    }
+    return new CsrGraph<>(nodeArray, offsets, targets, weights, names, nameTable.toArray(new String[0]),
+        positions[0], positions[1]);
+  }
+}
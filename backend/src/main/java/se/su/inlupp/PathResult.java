@@ -0,0 +1,46 @@
+package se.su.inlupp;
+
+import java.util.List;
+
+// Resultatet av en vägsökning: vägen, dess totala vikt och hur många noder sökningen expanderade
+public class PathResult<T> {
+  private final List<Edge<T>> edges;
+  private final int expandedNodes;
+
+  public PathResult(List<Edge<T>> edges, int expandedNodes) {
+    this.edges = edges;
+    this.expandedNodes = expandedNodes;
+  }
+
+  public boolean isFound() {
+    return edges != null;
+  }
+
+  // Vägens bågar, null om ingen väg finns
+  public List<Edge<T>> getEdges() {
+    return edges;
+  }
+
+  public long getTotalWeight() {
+    if (edges == null) {
+      return -1;
+    }
+    long total = 0;
+    for (Edge<T> edge : edges) {
+      total += edge.getWeight();
+    }
+    return total;
+  }
+
+  // Antal noder som togs ut ur kön och expanderades, -1 om implementationen inte räknar
+  public int getExpandedNodes() {
+    return expandedNodes;
+  }
+
+  @Override
+  public String toString() {
+    return isFound()
+        ? edges.size() + " bågar med total vikt " + getTotalWeight() + " (" + expandedNodes + " noder expanderade)"
+        : "ingen väg (" + expandedNodes + " noder expanderade)";
+  }
+}
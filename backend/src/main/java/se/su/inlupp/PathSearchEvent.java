@@ -0,0 +1,73 @@
+package se.su.inlupp;
+
+import jdk.jfr.*;
+
+import java.util.List;
+
+// JFR-händelse för en vägsökning. Skapas och startas före sökningen och rapporteras efter;
+// fälten fylls bara i när händelsen faktiskt ska sparas, så utan inspelning kostar den nästan
+// inget. Händelsen är påslagen utan tröskel, så den kommer med i varje inspelning.
+@Name("se.su.inlupp.PathSearch")
+@Label("Path Search")
+@Category({"Graph", "Search"})
+@Description("A path query against a graph")
+@StackTrace(false)
+final class PathSearchEvent extends Event {
+  @Label("Algorithm")
+  String algorithm;
+
+  @Label("Graph Type")
+  String graphType;
+
+  @Label("Nodes")
+  @Description("Number of nodes in the graph")
+  int nodes;
+
+  @Label("From")
+  String from;
+
+  @Label("To")
+  String to;
+
+  @Label("Expanded Nodes")
+  @Description("Nodes taken off the queue, -1 if the search does not count them")
+  int expandedNodes;
+
+  @Label("Found")
+  boolean found;
+
+  @Label("Path Length")
+  @Description("Edges in the path, -1 if only reachability was asked for or no path exists")
+  int pathLength;
+
+  @Label("Path Weight")
+  long pathWeight;
+
+  void report(String algorithm, Graph<?> graph, int nodes, Object from, Object to, int expandedNodes,
+      boolean found, List<? extends Edge<?>> path) {
+    if (!shouldCommit()) {
+      return;
+    }
+    this.algorithm = algorithm;
+    this.graphType = graph.getClass().getSimpleName();
+    this.nodes = nodes;
+    this.from = String.valueOf(from);
+    this.to = String.valueOf(to);
+    this.expandedNodes = expandedNodes;
+    this.found = found;
+    this.pathLength = path == null ? -1 : path.size();
+    long weight = 0;
+    if (path != null) {
+      for (Edge<?> edge : path) {
+        weight += edge.getWeight();
+      }
+    }
+    this.pathWeight = weight;
+    commit();
+  }
+
+  void report(String algorithm, Graph<?> graph, int nodes, Object from, Object to, int expandedNodes,
+      List<? extends Edge<?>> path) {
+    report(algorithm, graph, nodes, from, to, expandedNodes, path != null, path);
+  }
+}
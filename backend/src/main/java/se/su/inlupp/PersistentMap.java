@@ -0,0 +1,326 @@
+package se.su.inlupp;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+// Oföränderlig hashmappning (hash array mapped trie). with och without returnerar en ny karta
+// som delar alla orörda delträd med den gamla, så en ändring kopierar bara vägen ner till nyckeln.
+final class PersistentMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(new Branch(0, new Object[0]), 0);
+
+  // Ungefärlig storlek i byte för objekthuvud respektive referens, för minnesuppskattningar
+  static final int HEADER_BYTES = 16;
+  static final int REFERENCE_BYTES = 4;
+
+  private final Branch root;
+  private final int size;
+
+  private PersistentMap(Branch root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  private static final class Leaf {
+    final int hash;
+    final Object key;
+    final Object value;
+
+    Leaf(int hash, Object key, Object value) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  // Inre nod: bitmap över vilka av de 32 platserna som används, barnen i kompakt array
+  private static final class Branch {
+    final int bitmap;
+    final Object[] children; // Leaf, Branch eller Collision
+
+    Branch(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  // Nycklar med exakt samma hash
+  private static final class Collision {
+    final int hash;
+    final Leaf[] leaves;
+
+    Collision(int hash, Leaf[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean containsKey(K key) {
+    return find(key) != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(K key) {
+    Leaf leaf = find(key);
+    return leaf == null ? null : (V) leaf.value;
+  }
+
+  private Leaf find(Object key) {
+    int hash = hash(key);
+    Object node = root;
+    for (int shift = 0; ; shift += BITS) {
+      if (node instanceof Branch branch) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((branch.bitmap & bit) == 0) {
+          return null;
+        }
+        node = branch.children[branch.index(bit)];
+      } else if (node instanceof Leaf leaf) {
+        return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+      } else {
+        Collision collision = (Collision) node;
+        for (Leaf leaf : collision.leaves) {
+          if (leaf.key.equals(key)) {
+            return leaf;
+          }
+        }
+        return null;
+      }
+    }
+  }
+
+  PersistentMap<K, V> with(K key, V value) {
+    boolean[] added = new boolean[1];
+    Branch newRoot = (Branch) with(root, 0, new Leaf(hash(key), key, value), added);
+    return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  private static Object with(Object node, int shift, Leaf leaf, boolean[] added) {
+    if (node instanceof Branch branch) {
+      int bit = 1 << ((leaf.hash >>> shift) & MASK);
+      int index = branch.index(bit);
+      if ((branch.bitmap & bit) == 0) {
+        Object[] children = new Object[branch.children.length + 1];
+        System.arraycopy(branch.children, 0, children, 0, index);
+        children[index] = leaf;
+        System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+        added[0] = true;
+        return new Branch(branch.bitmap | bit, children);
+      }
+      Object[] children = branch.children.clone();
+      children[index] = with(branch.children[index], shift + BITS, leaf, added);
+      return new Branch(branch.bitmap, children);
+    }
+    if (node instanceof Leaf existing) {
+      if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+        return leaf;
+      }
+      added[0] = true;
+      if (existing.hash == leaf.hash) {
+        return new Collision(leaf.hash, new Leaf[] {existing, leaf});
+      }
+      // Två olika hashar på samma plats: dela upp i en ny gren
+      Object split = new Branch(1 << ((existing.hash >>> shift) & MASK), new Object[] {existing});
+      return with(split, shift, leaf, added);
+    }
+    Collision collision = (Collision) node;
+    if (collision.hash != leaf.hash) {
+      Object split = new Branch(1 << ((collision.hash >>> shift) & MASK), new Object[] {collision});
+      return with(split, shift, leaf, added);
+    }
+    Leaf[] leaves = collision.leaves;
+    for (int i = 0; i < leaves.length; i++) {
+      if (leaves[i].key.equals(leaf.key)) {
+        Leaf[] copy = leaves.clone();
+        copy[i] = leaf;
+        return new Collision(leaf.hash, copy);
+      }
+    }
+    Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+    copy[leaves.length] = leaf;
+    added[0] = true;
+    return new Collision(leaf.hash, copy);
+  }
+
+  PersistentMap<K, V> without(K key) {
+    if (!containsKey(key)) {
+      return this;
+    }
+    Object newRoot = without(root, 0, hash(key), key);
+    return new PersistentMap<>(newRoot == null ? new Branch(0, new Object[0]) : (Branch) newRoot, size - 1);
+  }
+
+  // Returnerar den nya noden, null om den blev tom. Rotnoden behålls alltid som gren.
+  private static Object without(Object node, int shift, int hash, Object key) {
+    if (node instanceof Branch branch) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      int index = branch.index(bit);
+      Object child = without(branch.children[index], shift + BITS, hash, key);
+      if (child != null) {
+        Object[] children = branch.children.clone();
+        children[index] = child;
+        return new Branch(branch.bitmap, children);
+      }
+      if (branch.children.length == 1 && shift > 0) {
+        return null;
+      }
+      Object[] children = new Object[branch.children.length - 1];
+      System.arraycopy(branch.children, 0, children, 0, index);
+      System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+      return new Branch(branch.bitmap & ~bit, children);
+    }
+    if (node instanceof Leaf) {
+      return null;
+    }
+    Collision collision = (Collision) node;
+    if (collision.leaves.length == 2) {
+      return collision.leaves[0].key.equals(key) ? collision.leaves[1] : collision.leaves[0];
+    }
+    Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+    int position = 0;
+    for (Leaf leaf : collision.leaves) {
+      if (!leaf.key.equals(key)) {
+        leaves[position++] = leaf;
+      }
+    }
+    return new Collision(collision.hash, leaves);
+  }
+
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    Iterator<Leaf> iterator = leaves();
+    while (iterator.hasNext()) {
+      Leaf leaf = iterator.next();
+      action.accept((K) leaf.key, (V) leaf.value);
+    }
+  }
+
+  // Oföränderlig mängd med kartans nycklar
+  Set<K> keySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<K> iterator() {
+        Iterator<Leaf> leaves = leaves();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return leaves.hasNext();
+          }
+
+          @SuppressWarnings("unchecked")
+          @Override
+          public K next() {
+            return (K) leaves.next().key;
+          }
+        };
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public boolean contains(Object key) {
+        return key != null && containsKey((K) key);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private Iterator<Leaf> leaves() {
+    Deque<Object> stack = new ArrayDeque<>();
+    stack.push(root);
+    return new Iterator<>() {
+      private final Deque<Leaf> pending = new ArrayDeque<>();
+
+      @Override
+      public boolean hasNext() {
+        while (pending.isEmpty() && !stack.isEmpty()) {
+          Object node = stack.pop();
+          if (node instanceof Branch branch) {
+            for (int i = branch.children.length - 1; i >= 0; i--) {
+              stack.push(branch.children[i]);
+            }
+          } else if (node instanceof Leaf leaf) {
+            pending.add(leaf);
+          } else {
+            pending.addAll(Arrays.asList(((Collision) node).leaves));
+          }
+        }
+        return !pending.isEmpty();
+      }
+
+      @Override
+      public Leaf next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return pending.poll();
+      }
+    };
+  }
+
+  // Storleken på värdet i byte, för minnesuppskattningar
+  interface Sizer {
+    long bytes(Object value);
+  }
+
+  // Uppskattar hur många byte denna version håller kvar som inte delas med newer.
+  // Delträd som är samma objekt i båda versionerna hoppas över, liksom allt i counted.
+  long retainedBytes(PersistentMap<K, V> newer, Sizer sizer, Set<Object> counted) {
+    return retained(root, newer.root, sizer, counted);
+  }
+
+  private static long retained(Object node, Object newer, Sizer sizer, Set<Object> counted) {
+    if (node == newer || !counted.add(node)) {
+      return 0;
+    }
+    if (node instanceof Branch branch) {
+      long bytes = HEADER_BYTES * 2 + REFERENCE_BYTES * (branch.children.length + 1);
+      Branch newerBranch = newer instanceof Branch b ? b : null;
+      for (int bit = 1, i = 0; i < branch.children.length; bit <<= 1) {
+        if ((branch.bitmap & bit) == 0) {
+          continue;
+        }
+        Object newerChild = newerBranch != null && (newerBranch.bitmap & bit) != 0
+            ? newerBranch.children[newerBranch.index(bit)]
+            : null;
+        bytes += retained(branch.children[i++], newerChild, sizer, counted);
+      }
+      return bytes;
+    }
+    if (node instanceof Leaf leaf) {
+      long bytes = HEADER_BYTES + REFERENCE_BYTES * 3;
+      Object newerValue = newer instanceof Leaf newerLeaf && newerLeaf.key.equals(leaf.key) ? newerLeaf.value : null;
+      if (leaf.value != newerValue && counted.add(leaf.value)) {
+        bytes += sizer.bytes(leaf.value);
+      }
+      return bytes;
+    }
+    long bytes = HEADER_BYTES * 2 + REFERENCE_BYTES * (((Collision) node).leaves.length + 1);
+    for (Leaf leaf : ((Collision) node).leaves) {
+      bytes += retained(leaf, null, sizer, counted);
+    }
+    return bytes;
+  }
+}
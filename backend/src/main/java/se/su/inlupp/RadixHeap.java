@@ -0,0 +1,93 @@
+package se.su.inlupp;
+
+import java.util.Arrays;
+
+// Monoton prioritetskö (radix heap) för Dijkstra med icke-negativa heltalsvikter.
+// Nycklar som läggs in får aldrig vara mindre än den senast uttagna nyckeln.
+final class RadixHeap {
+  private static final int BUCKETS = 65;
+
+  private final long[][] keys = new long[BUCKETS][];
+  private final int[][] values = new int[BUCKETS][];
+  private final int[] sizes = new int[BUCKETS];
+  private long last;
+  private int size;
+
+  RadixHeap() {
+    for (int i = 0; i < BUCKETS; i++) {
+      keys[i] = new long[4];
+      values[i] = new int[4];
+    }
+  }
+
+  void clear() {
+    Arrays.fill(sizes, 0);
+    last = 0;
+    size = 0;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void push(long key, int value) {
+    if (key < last) {
+      throw new IllegalArgumentException("Nyckeln får inte vara mindre än den senast uttagna.");
+    }
+    insert(bucketOf(key), key, value);
+    size++;
+  }
+
+  // Nyckeln för det element som pop() returnerar härnäst
+  long peekKey() {
+    refill();
+    return last;
+  }
+
+  int pop() {
+    refill();
+    size--;
+    return values[0][--sizes[0]];
+  }
+
+  private int bucketOf(long key) {
+    return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+  }
+
+  private void insert(int bucket, long key, int value) {
+    int n = sizes[bucket];
+    if (n == keys[bucket].length) {
+      keys[bucket] = Arrays.copyOf(keys[bucket], n * 2);
+      values[bucket] = Arrays.copyOf(values[bucket], n * 2);
+    }
+    keys[bucket][n] = key;
+    values[bucket][n] = value;
+    sizes[bucket] = n + 1;
+  }
+
+  // Flytta innehållet i första icke-tomma hinken ner så att hink 0 har minsta nyckeln
+  private void refill() {
+    if (size == 0) {
+      throw new IllegalStateException("Kön är tom.");
+    }
+    if (sizes[0] > 0) {
+      return;
+    }
+    int bucket = 1;
+    while (sizes[bucket] == 0) {
+      bucket++;
+    }
+    long[] bucketKeys = keys[bucket];
+    int[] bucketValues = values[bucket];
+    int n = sizes[bucket];
+    long min = bucketKeys[0];
+    for (int i = 1; i < n; i++) {
+      min = Math.min(min, bucketKeys[i]);
+    }
+    last = min;
+    sizes[bucket] = 0;
+    for (int i = 0; i < n; i++) {
+      insert(bucketOf(bucketKeys[i]), bucketKeys[i], bucketValues[i]);
+    }
+  }
+}
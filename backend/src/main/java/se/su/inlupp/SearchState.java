@@ -0,0 +1,76 @@
+package se.su.inlupp;
+
+import java.util.Arrays;
+
+// Arbetsarrayer för sökningar som återanvänds mellan anrop.
+// En nod räknas som nådd i aktuell sökning om mark[nod] == epoch, så inget behöver nollställas.
+final class SearchState {
+  int[] mark = new int[0];
+  int[] closed = new int[0];     // epoch när noden senast expanderades
+  long[] dist = new long[0];
+  int[] parent = new int[0];     // föregående nod på vägen
+  int[] parentEdge = new int[0]; // index för bågen i föregående nods lista
+  int[] stack = new int[0];      // stack för DFS, kö för BFS
+  int[] cursor = new int[0];     // nästa båge att undersöka för varje nod på DFS-stacken
+  int[] banned = new int[0];     // banEpoch för noder som inte får besökas
+  final RadixHeap heap = new RadixHeap();
+  private int epoch;
+  private int banEpoch;
+
+  void begin(int nodeCount) {
+    if (mark.length < nodeCount) {
+      int capacity = Math.max(nodeCount, mark.length * 2);
+      mark = Arrays.copyOf(mark, capacity);
+      closed = Arrays.copyOf(closed, capacity);
+      dist = Arrays.copyOf(dist, capacity);
+      parent = Arrays.copyOf(parent, capacity);
+      parentEdge = Arrays.copyOf(parentEdge, capacity);
+      stack = Arrays.copyOf(stack, capacity);
+      cursor = Arrays.copyOf(cursor, capacity);
+    }
+    if (++epoch == 0) {
+      Arrays.fill(mark, 0);
+      Arrays.fill(closed, 0);
+      epoch = 1;
+    }
+    heap.clear();
+  }
+
+  // Tömmer spärrarna; de gäller tills nästa anrop, oberoende av begin
+  void beginBans(int nodeCount) {
+    if (banned.length < nodeCount) {
+      banned = Arrays.copyOf(banned, Math.max(nodeCount, banned.length * 2));
+    }
+    if (++banEpoch == 0) {
+      Arrays.fill(banned, 0);
+      banEpoch = 1;
+    }
+  }
+
+  void ban(int node) {
+    banned[node] = banEpoch;
+  }
+
+  boolean isBanned(int node) {
+    return banned[node] == banEpoch;
+  }
+
+  boolean reached(int node) {
+    return mark[node] == epoch;
+  }
+
+  boolean isClosed(int node) {
+    return closed[node] == epoch;
+  }
+
+  void close(int node) {
+    closed[node] = epoch;
+  }
+
+  void reach(int node, long distance, int from, int edge) {
+    mark[node] = epoch;
+    dist[node] = distance;
+    parent[node] = from;
+    parentEdge[node] = edge;
+  }
+}
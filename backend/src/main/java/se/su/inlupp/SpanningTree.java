@@ -0,0 +1,290 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Minsta uppspännande träd: de förbindelser med lägst sammanlagd vikt som håller ihop varje
+// sammanhängande del av grafen. Är grafen inte sammanhängande blir det en skog med ett träd
+// per del. Öglor tas aldrig med.
+//
+// Båda algoritmerna arbetar på grafen frusen till en CsrGraph och behöver bara några
+// primitiva arrayer till. Kruskal sorterar förbindelserna en gång och passar glesa grafer;
+// Prim med indexerad heap undviker sorteringen och passar täta grafer. Vid lika vikter kan
+// de välja olika förbindelser, men totalvikten är alltid densamma.
+public final class SpanningTree<T> {
+
+  private final CsrGraph<T> graph;
+  private final int[] from; // trädets förbindelser som (nod, bågindex) i graph
+  private final int[] edges;
+  private final int components;
+
+  private SpanningTree(CsrGraph<T> graph, int[] from, int[] edges, int components) {
+    this.graph = graph;
+    this.from = from;
+    this.edges = edges;
+    this.components = components;
+  }
+
+  private static <T> CsrGraph<T> frozen(Graph<T> graph) {
+    return graph instanceof CsrGraph<T> csr ? csr : CsrGraph.freeze(graph);
+  }
+
+  // Varje förbindelse u-v med u < v blir en nyckel med vikten i de övre 32 bitarna och
+  // bågindex i de nedre, så att en sortering ordnar dem efter vikt
+  public static <T> SpanningTree<T> kruskal(Graph<T> graph) {
+    CsrGraph<T> csr = frozen(graph);
+    int n = csr.nodeCount();
+    int[] offsets = csr.offsets;
+    int[] targets = csr.targets;
+
+    int[] source = new int[targets.length];
+    int count = 0;
+    for (int node = 0; node < n; node++) {
+      for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+        source[edge] = node;
+        if (node < targets[edge]) {
+          count++;
+        }
+      }
+    }
+    long[] keys = new long[count];
+    count = 0;
+    for (int edge = 0; edge < targets.length; edge++) {
+      if (source[edge] < targets[edge]) {
+        keys[count++] = (long) csr.weights[edge] << 32 | edge;
+      }
+    }
+    Arrays.parallelSort(keys);
+
+    UnionFind sets = new UnionFind(n);
+    int[] treeFrom = new int[Math.max(0, n - 1)];
+    int[] treeEdges = new int[treeFrom.length];
+    int size = 0;
+    for (int i = 0; i < keys.length && size < treeFrom.length; i++) {
+      int edge = (int) keys[i];
+      if (sets.union(source[edge], targets[edge])) {
+        treeFrom[size] = source[edge];
+        treeEdges[size] = edge;
+        size++;
+      }
+    }
+    return new SpanningTree<>(csr, Arrays.copyOf(treeFrom, size), Arrays.copyOf(treeEdges, size), n - size);
+  }
+
+  // Prim från varje nod som ännu inte ingår i något träd. Heapen håller noder utanför trädet
+  // med billigaste kända förbindelse in i det, och position gör att en nods nyckel kan
+  // sänkas på plats.
+  public static <T> SpanningTree<T> prim(Graph<T> graph) {
+    CsrGraph<T> csr = frozen(graph);
+    int n = csr.nodeCount();
+    int[] offsets = csr.offsets;
+    int[] targets = csr.targets;
+    int[] weights = csr.weights;
+
+    int[] best = new int[n]; // billigaste båge från trädet till noden, -1 om ingen är känd
+    Arrays.fill(best, -1);
+    boolean[] inTree = new boolean[n];
+    IndexedHeap heap = new IndexedHeap(n);
+    int[] treeFrom = new int[Math.max(0, n - 1)];
+    int[] treeEdges = new int[treeFrom.length];
+    int size = 0;
+    int components = 0;
+
+    for (int root = 0; root < n; root++) {
+      if (inTree[root]) {
+        continue;
+      }
+      components++;
+      heap.push(root, 0);
+      while (!heap.isEmpty()) {
+        int node = heap.pop();
+        inTree[node] = true;
+        if (best[node] >= 0) {
+          treeFrom[size] = rowOf(offsets, best[node]);
+          treeEdges[size] = best[node];
+          size++;
+        }
+        for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+          int neighbor = targets[edge];
+          if (inTree[neighbor]) {
+            continue;
+          }
+          if (!heap.contains(neighbor)) {
+            best[neighbor] = edge;
+            heap.push(neighbor, weights[edge]);
+          } else if (weights[edge] < heap.key(neighbor)) {
+            best[neighbor] = edge;
+            heap.decrease(neighbor, weights[edge]);
+          }
+        }
+      }
+    }
+    return new SpanningTree<>(csr, Arrays.copyOf(treeFrom, size), Arrays.copyOf(treeEdges, size), components);
+  }
+
+  // Noden vars rad innehåller bågen: sista noden med offsets[node] <= edge
+  private static int rowOf(int[] offsets, int edge) {
+    int low = 0;
+    int high = offsets.length - 2;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (offsets[middle] <= edge) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  // Binär min-heap över nod-id med nodens plats i heapen, så att nycklar kan sänkas
+  private static final class IndexedHeap {
+    private final int[] nodes;
+    private final int[] position; // -1 om noden inte ligger i heapen
+    private final long[] keys;
+    private int size;
+
+    IndexedHeap(int capacity) {
+      nodes = new int[capacity];
+      keys = new long[capacity];
+      position = new int[capacity];
+      Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    boolean contains(int node) {
+      return position[node] >= 0;
+    }
+
+    long key(int node) {
+      return keys[position[node]];
+    }
+
+    void push(int node, long key) {
+      nodes[size] = node;
+      keys[size] = key;
+      position[node] = size;
+      siftUp(size++);
+    }
+
+    void decrease(int node, long key) {
+      int at = position[node];
+      keys[at] = key;
+      siftUp(at);
+    }
+
+    int pop() {
+      int top = nodes[0];
+      position[top] = -1;
+      size--;
+      if (size > 0) {
+        move(size, 0);
+        siftDown(0);
+      }
+      return top;
+    }
+
+    private void siftUp(int at) {
+      int node = nodes[at];
+      long key = keys[at];
+      while (at > 0) {
+        int parent = (at - 1) >>> 1;
+        if (keys[parent] <= key) {
+          break;
+        }
+        move(parent, at);
+        at = parent;
+      }
+      place(node, key, at);
+    }
+
+    private void siftDown(int at) {
+      int node = nodes[at];
+      long key = keys[at];
+      while (true) {
+        int child = 2 * at + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && keys[child + 1] < keys[child]) {
+          child++;
+        }
+        if (keys[child] >= key) {
+          break;
+        }
+        move(child, at);
+        at = child;
+      }
+      place(node, key, at);
+    }
+
+    private void move(int from, int to) {
+      place(nodes[from], keys[from], to);
+    }
+
+    private void place(int node, long key, int at) {
+      nodes[at] = node;
+      keys[at] = key;
+      position[node] = at;
+    }
+  }
+
+  // Antal förbindelser i trädet (skogen)
+  public int size() {
+    return edges.length;
+  }
+
+  // Antal sammanhängande delar, alltså antal träd
+  public int getComponents() {
+    return components;
+  }
+
+  public boolean isSpanningTree() {
+    return components <= 1;
+  }
+
+  public T getFrom(int index) {
+    return graph.nodeAt(from[index]);
+  }
+
+  // Förbindelsen som en båge från getFrom(index)
+  public Edge<T> getEdge(int index) {
+    return graph.edgeAt(edges[index]);
+  }
+
+  public List<Edge<T>> getEdges() {
+    List<Edge<T>> list = new ArrayList<>(edges.length);
+    for (int edge : edges) {
+      list.add(graph.edgeAt(edge));
+    }
+    return list;
+  }
+
+  public long getTotalWeight() {
+    long total = 0;
+    for (int edge : edges) {
+      total += graph.weights[edge];
+    }
+    return total;
+  }
+
+  // Ny graf med alla noder och trädets förbindelser. Positioner följer med om grafen hade några.
+  public SpatialGraph<T> toGraph() {
+    SpatialGraph<T> tree = new SpatialGraph<>();
+    for (int id = 0; id < graph.nodeCount(); id++) {
+      T node = graph.nodeAt(id);
+      if (graph.hasPosition(node)) {
+        tree.add(node, graph.getX(node), graph.getY(node));
+      } else {
+        tree.add(node);
+      }
+    }
+    for (int i = 0; i < edges.length; i++) {
+      tree.connect(graph.nodeAt(from[i]), graph.nodeAt(graph.targets[edges[i]]), graph.nameAt(edges[i]),
+          graph.weights[edges[i]]);
+    }
+    return tree;
+  }
+}
@@ -0,0 +1,153 @@
+package se.su.inlupp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// ListGraph där noderna har koordinater (x;y som i .graph-filerna).
+// Kortaste vägen söks med A* när alla noder har en position, annars med vanlig Dijkstra.
+public class SpatialGraph<T> extends ListGraph<T> {
+
+  private double[] xs = new double[0]; // id -> x, NaN om positionen saknas
+  private double[] ys = new double[0];
+  private int missingPositions;
+  private double scale = Double.NaN; // minsta vikt per avståndsenhet, NaN om den måste räknas om
+
+  @Override
+  public void add(T node) {
+    if (idOf(node) >= 0) {
+      return;
+    }
+    super.add(node);
+    int id = idOf(node);
+    ensureCapacity(id + 1);
+    xs[id] = Double.NaN;
+    ys[id] = Double.NaN;
+    missingPositions++;
+  }
+
+  public void add(T node, double x, double y) {
+    add(node);
+    setPosition(node, x, y);
+  }
+
+  public void setPosition(T node, double x, double y) {
+    int id = idOf(node);
+    if (id < 0) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    if (Double.isNaN(x) || Double.isNaN(y)) {
+      throw new IllegalArgumentException("Koordinaterna måste vara tal.");
+    }
+    if (Double.isNaN(xs[id])) {
+      missingPositions--;
+    }
+    xs[id] = x;
+    ys[id] = y;
+    scale = Double.NaN;
+  }
+
+  public boolean hasPosition(T node) {
+    int id = idOf(node);
+    return id >= 0 && !Double.isNaN(xs[id]);
+  }
+
+  public double getX(T node) {
+    return xs[positionedId(node)];
+  }
+
+  public double getY(T node) {
+    return ys[positionedId(node)];
+  }
+
+  private int positionedId(T node) {
+    int id = idOf(node);
+    if (id < 0) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    if (Double.isNaN(xs[id])) {
+      throw new NoSuchElementException("Noden saknar position.");
+    }
+    return id;
+  }
+
+  @Override
+  void removed(int id) {
+    if (Double.isNaN(xs[id])) {
+      missingPositions--;
+    }
+    xs[id] = Double.NaN;
+    ys[id] = Double.NaN;
+  }
+
+  @Override
+  public void connect(T node1, T node2, String name, int weight) {
+    super.connect(node1, node2, name, weight);
+    scale = Double.NaN;
+  }
+
+  @Override
+  public void setConnectionWeight(T node1, T node2, int weight) {
+    super.setConnectionWeight(node1, node2, weight);
+    scale = Double.NaN;
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    int source = idOf(from);
+    int target = idOf(to);
+    if (source < 0 || target < 0) {
+      return new PathResult<>(null, 0);
+    }
+    if (missingPositions > 0) {
+      return shortestPath(source, target, null);
+    }
+
+    // Avståndet skalat med minsta vikt per avståndsenhet underskattar aldrig den verkliga vikten
+    double factor = heuristicScale();
+    double targetX = xs[target];
+    double targetY = ys[target];
+    return shortestPath(source, target,
+        node -> (long) (factor * Math.hypot(xs[node] - targetX, ys[node] - targetY)));
+  }
+
+  // Samma som findShortestPath men alltid med Dijkstra, för jämförelser
+  public PathResult<T> findShortestPathDijkstra(T from, T to) {
+    int source = idOf(from);
+    int target = idOf(to);
+    if (source < 0 || target < 0) {
+      return new PathResult<>(null, 0);
+    }
+    return shortestPath(source, target, null);
+  }
+
+  private double heuristicScale() {
+    if (!Double.isNaN(scale)) {
+      return scale;
+    }
+    double min = Double.POSITIVE_INFINITY;
+    for (int id = 0; id < idCapacity(); id++) {
+      List<Edge<T>> edges = edgesAt(id);
+      if (edges == null) {
+        continue;
+      }
+      for (Edge<T> edge : edges) {
+        double distance = Math.hypot(xs[id] - xs[edge.destinationId], ys[id] - ys[edge.destinationId]);
+        if (distance > 0) {
+          min = Math.min(min, edge.getWeight() / distance);
+        }
+      }
+    }
+    // Marginal mot avrundningsfel så att heuristiken förblir konsistent
+    scale = min == Double.POSITIVE_INFINITY ? 0 : min * (1 - 1e-9);
+    return scale;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (xs.length < capacity) {
+      int size = Math.max(capacity, xs.length * 2);
+      xs = Arrays.copyOf(xs, size);
+      ys = Arrays.copyOf(ys, size);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package se.su.inlupp;
+
+import java.util.Arrays;
+
+// Disjunkta mängder över heltals-id med sammanslagning efter storlek och vägkomprimering
+final class UnionFind {
+  private int[] parent;
+  private int[] size;
+
+  UnionFind(int capacity) {
+    parent = new int[0];
+    size = new int[0];
+    reset(capacity);
+  }
+
+  // Varje id blir en egen mängd
+  void reset(int capacity) {
+    if (parent.length < capacity) {
+      parent = new int[capacity];
+      size = new int[capacity];
+    }
+    for (int i = 0; i < parent.length; i++) {
+      parent[i] = i;
+    }
+    Arrays.fill(size, 1);
+  }
+
+  void makeSet(int id) {
+    if (id >= parent.length) {
+      int old = parent.length;
+      int capacity = Math.max(id + 1, old * 2);
+      parent = Arrays.copyOf(parent, capacity);
+      size = Arrays.copyOf(size, capacity);
+      for (int i = old; i < capacity; i++) {
+        parent[i] = i;
+        size[i] = 1;
+      }
+    }
+    parent[id] = id;
+    size[id] = 1;
+  }
+
+  int find(int id) {
+    while (parent[id] != id) {
+      parent[id] = parent[parent[id]]; // halvera vägen mot roten
+      id = parent[id];
+    }
+    return id;
+  }
+
+  // Slår ihop mängderna, returnerar false om de redan var samma
+  boolean union(int a, int b) {
+    int rootA = find(a);
+    int rootB = find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+    if (size[rootA] < size[rootB]) {
+      int tmp = rootA;
+      rootA = rootB;
+      rootB = tmp;
+    }
+    parent[rootB] = rootA;
+    size[rootA] += size[rootB];
+    return true;
+  }
+
+  boolean connected(int a, int b) {
+    return find(a) == find(b);
+  }
+}
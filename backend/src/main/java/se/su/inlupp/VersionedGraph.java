@@ -0,0 +1,261 @@
+package se.su.inlupp;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+// Graf med versioner (MVCC). Grannlistorna ligger i en oföränderlig hashtrie, så varje ändring
+// kopierar bara vägen ner till de berörda noderna och resten delas mellan versionerna.
+// snapshot() kostar därför bara en referens och läsare kan gå igenom en version hur länge som
+// helst medan skrivare fortsätter. Skrivningar serialiseras; läsningar tar inga lås.
+//
+// Bågobjekten ändras aldrig; setConnectionWeight ersätter dem så att äldre versioner behåller
+// sina vikter.
+public class VersionedGraph<T> implements Graph<T> {
+  private static final int EDGE_BYTES = PersistentMap.HEADER_BYTES + PersistentMap.REFERENCE_BYTES * 3;
+  private static final Edge<?>[] NO_EDGES = new Edge<?>[0];
+
+  private volatile GraphSnapshot<T> current = new GraphSnapshot<>(PersistentMap.empty(), 0);
+  // Utlämnade versioner. Varje version läggs till en gång; referenser som skräpsamlaren har
+  // rensat hamnar i queue och tas bort nästa gång en version läggs till.
+  private final Set<WeakReference<GraphSnapshot<T>>> handedOut = new HashSet<>();
+  private final ReferenceQueue<GraphSnapshot<T>> queue = new ReferenceQueue<>();
+  private volatile long lastHandedOut = -1; // versionsnummer, så att versionen inte hålls kvar
+
+  // Den senaste versionen. Samma objekt returneras tills grafen ändras, och bara första
+  // gången en version lämnas ut tas ett lås.
+  public GraphSnapshot<T> snapshot() {
+    GraphSnapshot<T> snapshot = current;
+    if (lastHandedOut != snapshot.getVersion()) {
+      synchronized (handedOut) {
+        if (lastHandedOut != snapshot.getVersion()) {
+          expunge();
+          handedOut.add(new WeakReference<>(snapshot, queue));
+          lastHandedOut = snapshot.getVersion();
+        }
+      }
+    }
+    return snapshot;
+  }
+
+  // Anropas med handedOut låst
+  private void expunge() {
+    for (Reference<? extends GraphSnapshot<T>> cleared = queue.poll(); cleared != null; cleared = queue.poll()) {
+      handedOut.remove(cleared);
+    }
+  }
+
+  public long getVersion() {
+    return current.getVersion();
+  }
+
+  // Antal utlämnade äldre versioner som fortfarande används
+  public int getRetainedVersions() {
+    return retainedVersions().size();
+  }
+
+  // Uppskattat antal byte som hålls kvar av äldre versioner och inte delas med den senaste
+  public long getRetainedBytes() {
+    PersistentMap<T, Edge<T>[]> latest = current.adjacency();
+    Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    long bytes = 0;
+    for (GraphSnapshot<T> snapshot : retainedVersions()) {
+      bytes += snapshot.adjacency().retainedBytes(latest, value -> {
+        Edge<?>[] edges = (Edge<?>[]) value;
+        long total = PersistentMap.HEADER_BYTES + (long) PersistentMap.REFERENCE_BYTES * edges.length;
+        for (Edge<?> edge : edges) {
+          if (counted.add(edge)) {
+            total += EDGE_BYTES;
+          }
+        }
+        return total;
+      }, counted);
+    }
+    return bytes;
+  }
+
+  // Antal versioner som följs, även sådana som inte längre används men inte har rensats än
+  int trackedVersions() {
+    synchronized (handedOut) {
+      return handedOut.size();
+    }
+  }
+
+  private List<GraphSnapshot<T>> retainedVersions() {
+    GraphSnapshot<T> latest = current;
+    List<GraphSnapshot<T>> retained = new ArrayList<>();
+    synchronized (handedOut) {
+      expunge();
+      for (WeakReference<GraphSnapshot<T>> reference : handedOut) {
+        GraphSnapshot<T> snapshot = reference.get();
+        if (snapshot != null && snapshot != latest) {
+          retained.add(snapshot);
+        }
+      }
+    }
+    return retained;
+  }
+
+  private void publish(PersistentMap<T, Edge<T>[]> adjacency) {
+    current = new GraphSnapshot<>(adjacency, current.getVersion() + 1);
+  }
+
+  private PersistentMap<T, Edge<T>[]> adjacency() {
+    return current.adjacency();
+  }
+
+  private static <T> Edge<T>[] with(Edge<T>[] edges, Edge<T> edge) {
+    Edge<T>[] copy = Arrays.copyOf(edges, edges.length + 1);
+    copy[edges.length] = edge;
+    return copy;
+  }
+
+  // Ny array där bågen till destination är ersatt, eller borttagen om replacement är null
+  private static <T> Edge<T>[] replace(Edge<T>[] edges, T destination, Edge<T> replacement) {
+    for (int i = 0; i < edges.length; i++) {
+      if (edges[i].getDestination().equals(destination)) {
+        if (replacement != null) {
+          Edge<T>[] copy = edges.clone();
+          copy[i] = replacement;
+          return copy;
+        }
+        Edge<T>[] copy = Arrays.copyOf(edges, edges.length - 1);
+        if (i < copy.length) {
+          copy[i] = edges[edges.length - 1];
+        }
+        return copy;
+      }
+    }
+    return edges;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public synchronized void add(T node) {
+    if (!adjacency().containsKey(node)) {
+      publish(adjacency().with(node, (Edge<T>[]) NO_EDGES));
+    }
+  }
+
+  @Override
+  public synchronized void remove(T node) {
+    PersistentMap<T, Edge<T>[]> adjacency = adjacency();
+    Edge<T>[] edges = adjacency.get(node);
+    if (edges == null) {
+      throw new NoSuchElementException("Noden finns inte i grafen.");
+    }
+    for (Edge<T> edge : edges) {
+      T neighbor = edge.getDestination();
+      if (!neighbor.equals(node)) {
+        adjacency = adjacency.with(neighbor, replace(adjacency.get(neighbor), node, null));
+      }
+    }
+    publish(adjacency.without(node));
+  }
+
+  @Override
+  public synchronized void connect(T node1, T node2, String name, int weight) {
+    PersistentMap<T, Edge<T>[]> adjacency = adjacency();
+    if (!adjacency.containsKey(node1) || !adjacency.containsKey(node2)) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    if (weight < 0) {
+      throw new IllegalArgumentException("Vikten får inte vara negativ.");
+    }
+
+    if (GraphSnapshot.find(adjacency.get(node1), node2) != null) {
+      throw new IllegalStateException("En förbindelse mellan noderna finns redan.");
+    }
+
+    adjacency = adjacency.with(node1, with(adjacency.get(node1), new Edge<>(node2, name, weight)));
+    adjacency = adjacency.with(node2, with(adjacency.get(node2), new Edge<>(node1, name, weight)));
+    publish(adjacency);
+  }
+
+  @Override
+  public synchronized void disconnect(T node1, T node2) {
+    PersistentMap<T, Edge<T>[]> adjacency = adjacency();
+    if (!adjacency.containsKey(node1) || !adjacency.containsKey(node2)) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    if (GraphSnapshot.find(adjacency.get(node1), node2) == null
+        || GraphSnapshot.find(adjacency.get(node2), node1) == null) {
+      throw new IllegalStateException("Det finns ingen förbindelse mellan dessa noder.");
+    }
+
+    adjacency = adjacency.with(node1, replace(adjacency.get(node1), node2, null));
+    adjacency = adjacency.with(node2, replace(adjacency.get(node2), node1, null));
+    publish(adjacency);
+  }
+
+  @Override
+  public synchronized void setConnectionWeight(T node1, T node2, int weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Vikten får inte vara negativ.");
+    }
+
+    PersistentMap<T, Edge<T>[]> adjacency = adjacency();
+    if (!adjacency.containsKey(node1) || !adjacency.containsKey(node2)) {
+      throw new NoSuchElementException("En eller båda noder saknas i grafen.");
+    }
+
+    Edge<T> edge1 = GraphSnapshot.find(adjacency.get(node1), node2);
+    Edge<T> edge2 = GraphSnapshot.find(adjacency.get(node2), node1);
+    if (edge1 == null || edge2 == null) {
+      throw new NoSuchElementException("Det finns ingen förbindelse mellan dessa noder.");
+    }
+
+    adjacency = adjacency.with(node1, replace(adjacency.get(node1), node2, new Edge<>(node2, edge1.getName(), weight)));
+    adjacency = adjacency.with(node2, replace(adjacency.get(node2), node1, new Edge<>(node1, edge2.getName(), weight)));
+    publish(adjacency);
+  }
+
+  // Läsningar går mot den senaste versionen och ser alltid en hel version
+  @Override
+  public Set<T> getNodes() {
+    return current.getNodes();
+  }
+
+  @Override
+  public Collection<Edge<T>> getEdgesFrom(T node) {
+    return current.getEdgesFrom(node);
+  }
+
+  @Override
+  public Edge<T> getEdgeBetween(T node1, T node2) {
+    return current.getEdgeBetween(node1, node2);
+  }
+
+  @Override
+  public boolean pathExists(T from, T to) {
+    return current.pathExists(from, to);
+  }
+
+  @Override
+  public List<Edge<T>> getPath(T from, T to) {
+    return current.getPath(from, to);
+  }
+
+  @Override
+  public List<Edge<T>> getFewestHopsPath(T from, T to) {
+    return current.getFewestHopsPath(from, to);
+  }
+
+  @Override
+  public List<Edge<T>> getShortestPath(T from, T to) {
+    return current.getShortestPath(from, to);
+  }
+
+  @Override
+  public PathResult<T> findShortestPath(T from, T to) {
+    return current.findShortestPath(from, to);
+  }
+
+  @Override
+  public String toString() {
+    return current.toString();
+  }
+}
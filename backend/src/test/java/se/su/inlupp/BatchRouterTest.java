@@ -0,0 +1,134 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRouterTest {
+
+  private final ListGraph<String> graph = new ListGraph<>();
+
+  @Test
+  @DisplayName("Testar att svaren kommer i frågornas ordning och stämmer med findShortestPath.")
+  void matchesShortestPath() {
+    TestGraphs.randomGraph(graph, 80, 200, 3);
+    Random random = new Random(11);
+    List<Map.Entry<String, String>> queries = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      // Få startnoder, så att många frågor delar sökning
+      queries.add(Map.entry("N" + random.nextInt(10), "N" + random.nextInt(80)));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      BatchRouter.Batch<String> batch = new BatchRouter<>(graph, pool).route(queries);
+      assertEquals(500, batch.getQueries(), "Fel: Fel antal svar.");
+      assertTrue(batch.getSources() <= 10, "Fel: Frågorna har inte grupperats på startnod.");
+      for (int i = 0; i < queries.size(); i++) {
+        String from = queries.get(i).getKey();
+        String to = queries.get(i).getValue();
+        PathResult<String> expected = graph.findShortestPath(from, to);
+        PathResult<String> actual = batch.get(i);
+        assertEquals(expected.isFound(), actual.isFound(), "Fel: Fel svar från " + from + " till " + to);
+        if (expected.isFound()) {
+          assertEquals(expected.getTotalWeight(), actual.getTotalWeight(), "Fel: Fel längd från " + from + " till " + to);
+        }
+        if (expected.isFound() && !from.equals(to)) {
+          assertEquals(to, actual.getEdges().get(actual.getEdges().size() - 1).getDestination(), "Fel: Vägen slutar fel.");
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att frågor med okända noder och tomma satser ger svar utan väg.")
+  void missingNodes() {
+    graph.add("A");
+    graph.add("B");
+    graph.connect("A", "B", "väg", 2);
+    BatchRouter<String> router = new BatchRouter<>(graph);
+
+    BatchRouter.Batch<String> batch = router.route(List.of(Map.entry("A", "X"), Map.entry("A", "B"), Map.entry("A", "A")));
+    assertFalse(batch.get(0).isFound(), "Fel: En okänd nod ska inte ge någon väg.");
+    assertEquals(2, batch.get(1).getTotalWeight(), "Fel: Fel längd.");
+    assertTrue(batch.get(2).getEdges().isEmpty(), "Fel: Vägen till startnoden ska vara tom.");
+    assertEquals(1, batch.getSources(), "Fel: Frågorna från A ska dela sökning.");
+
+    assertEquals(0, router.route(List.of()).getQueries(), "Fel: En tom sats ska ge inga svar.");
+  }
+
+  @Test
+  @DisplayName("Testar att routern läser en ögonblicksbild och inte påverkas av senare ändringar.")
+  void readsSnapshot() {
+    VersionedGraph<String> versioned = new VersionedGraph<>();
+    versioned.add("A");
+    versioned.add("B");
+    versioned.connect("A", "B", "väg", 4);
+    BatchRouter<String> router = new BatchRouter<>(versioned);
+    versioned.setConnectionWeight("A", "B", 9);
+
+    assertEquals(4, router.route(List.of(Map.entry("A", "B"))).get(0).getTotalWeight(), "Fel: Routern ska söka i ögonblicksbilden.");
+  }
+  @Test
+  @DisplayName("Testar att routern kan skapas medan andra trådar ändrar en ConcurrentGraph.")
+  void freezesWhileWriting() throws Exception {
+    ConcurrentGraph<String> concurrent = new ConcurrentGraph<>();
+    for (int i = 0; i < 50; i++) {
+      concurrent.add("N" + i);
+    }
+    for (int i = 0; i < 50; i++) {
+      concurrent.connect("N" + i, "N" + (i + 1) % 50, "väg", 1 + i % 7);
+    }
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < 3; t++) {
+      int seed = t;
+      Thread writer = new Thread(() -> {
+        Random random = new Random(seed);
+        for (int i = 0; running.get(); i++) {
+          // Nya noder får förbindelser direkt, så en kopia som räknat noderna för tidigt märks
+          String node = "W" + seed + "-" + i;
+          concurrent.add(node);
+          int first = random.nextInt(50);
+          concurrent.connect(node, "N" + first, "väg", 1 + random.nextInt(9));
+          concurrent.connect(node, "N" + (first + 1 + random.nextInt(49)) % 50, "färja", 1 + random.nextInt(9));
+          if (i >= 20) {
+            concurrent.remove("W" + seed + "-" + (i - 20));
+          }
+        }
+      });
+      writer.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+      writer.start();
+      writers.add(writer);
+    }
+
+    try {
+      for (int round = 0; round < 200; round++) {
+        CsrGraph<String> frozen = new BatchRouter<>(concurrent).getGraph();
+        for (String node : frozen.getNodes()) {
+          for (Edge<String> edge : frozen.getEdgesFrom(node)) {
+            Edge<String> back = frozen.getEdgeBetween(edge.getDestination(), node);
+            assertNotNull(back, "Fel: Kopian har bara ena halvan av förbindelsen " + node + " - " + edge.getDestination());
+            assertEquals(edge.getWeight(), back.getWeight(), "Fel: Förbindelsens två halvor har olika vikt.");
+          }
+        }
+        assertTrue(frozen.nodeCount() >= 50, "Fel: De ursprungliga noderna saknas.");
+      }
+    } finally {
+      running.set(false);
+      for (Thread writer : writers) {
+        writer.join();
+      }
+    }
+    assertNull(failure.get(), "Fel: En skrivare kastade ett undantag.");
+  }
+}
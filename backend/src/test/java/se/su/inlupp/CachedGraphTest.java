@@ -0,0 +1,94 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedGraphTest {
+
+  private final CachedGraph<String> graph = new CachedGraph<>(new ListGraph<>(), 3);
+
+  private void createExampleGraph() {
+    for (String node : new String[] {"A", "B", "C", "D"}) {
+      graph.add(node);
+    }
+    graph.connect("A", "B", "A -> B", 1);
+    graph.connect("B", "C", "B -> C", 1);
+    graph.connect("A", "C", "A -> C", 5);
+  }
+
+  @Test
+  @DisplayName("Testar att samma fråga två gånger ger en träff.")
+  void countsHitsAndMisses() {
+    createExampleGraph();
+    List<Edge<String>> first = graph.getShortestPath("A", "C");
+    List<Edge<String>> second = graph.getShortestPath("A", "C");
+
+    assertSame(first, second, "Fel: Svaret hämtades inte från cachen.");
+    assertEquals(1, graph.getHits());
+    assertEquals(1, graph.getMisses());
+    graph.getFewestHopsPath("A", "C");
+    assertEquals(2, graph.getMisses(), "Fel: Olika typer av sökningar ska inte dela post.");
+  }
+
+  @Test
+  @DisplayName("Testar att en ändrad vikt aldrig ger en gammal väg.")
+  void weightChangeInvalidates() {
+    createExampleGraph();
+    assertEquals(2, TestGraphs.cost(graph.getShortestPath("A", "C")));
+
+    graph.setConnectionWeight("B", "C", 10);
+    assertEquals(5, TestGraphs.cost(graph.getShortestPath("A", "C")), "Fel: Cachen gav en gammal väg.");
+    assertEquals(1, graph.getStaleEntries());
+
+    graph.disconnect("A", "C");
+    assertEquals(11, TestGraphs.cost(graph.getShortestPath("A", "C")), "Fel: Cachen gav en gammal väg.");
+    graph.remove("B");
+    assertFalse(graph.pathExists("A", "C"), "Fel: Cachen gav en gammal väg.");
+  }
+
+  @Test
+  @DisplayName("Testar att en ny nod inte ger gamla svar.")
+  void addDoesNotNeedInvalidation() {
+    createExampleGraph();
+    assertNull(graph.getPath("A", "E"));
+    graph.add("E");
+    graph.connect("D", "E", "D -> E", 1);
+    assertNull(graph.getPath("A", "E"), "Fel: Det ska inte finnas någon väg.");
+    graph.connect("C", "D", "C -> D", 1);
+    assertNotNull(graph.getPath("A", "E"), "Fel: Cachen gav en gammal väg.");
+
+    long version = graph.getVersion();
+    graph.add("F");
+    assertEquals(version, graph.getVersion(), "Fel: add ska inte räkna upp versionen.");
+  }
+
+  @Test
+  @DisplayName("Testar att den minst nyligen använda posten kastas.")
+  void evictsLeastRecentlyUsed() {
+    createExampleGraph();
+    graph.pathExists("A", "B");
+    graph.pathExists("A", "C");
+    graph.pathExists("B", "C");
+    graph.pathExists("A", "B"); // A -> B används nu senast
+    graph.pathExists("C", "D");
+
+    assertEquals(3, graph.size());
+    assertEquals(1, graph.getEvictions());
+    long misses = graph.getMisses();
+    graph.pathExists("A", "B");
+    assertEquals(misses, graph.getMisses(), "Fel: Fel post kastades.");
+    graph.pathExists("A", "C");
+    assertEquals(misses + 1, graph.getMisses(), "Fel: Fel post kastades.");
+  }
+
+  @Test
+  @DisplayName("Testar att cachade vägar inte kan ändras.")
+  void cachedPathsAreUnmodifiable() {
+    createExampleGraph();
+    List<Edge<String>> path = graph.getPath("A", "C");
+    assertThrows(UnsupportedOperationException.class, () -> path.clear());
+  }
+}
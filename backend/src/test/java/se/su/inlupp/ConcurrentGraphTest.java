@@ -0,0 +1,163 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentGraphTest {
+
+  private final ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+
+  @Test
+  @DisplayName("Testar grundläggande operationer på den trådsäkra grafen.")
+  void basicOperations() {
+    for (int i = 0; i < 5; i++) {
+      graph.add(i);
+    }
+    graph.connect(0, 1, "a", 4);
+    graph.connect(1, 2, "b", 1);
+    graph.connect(0, 2, "c", 9);
+    assertThrows(IllegalStateException.class, () -> graph.connect(1, 0, "a", 4));
+    assertThrows(NoSuchElementException.class, () -> graph.connect(0, 99, "x", 1));
+
+    assertEquals(5, graph.findShortestPath(0, 2).getTotalWeight());
+    assertEquals(1, graph.getFewestHopsPath(0, 2).size());
+    assertTrue(graph.pathExists(0, 2));
+    assertFalse(graph.pathExists(0, 3));
+
+    graph.setConnectionWeight(2, 0, 2);
+    assertEquals(2, graph.getEdgeBetween(0, 2).getWeight());
+    assertEquals(2, graph.findShortestPath(0, 2).getTotalWeight());
+
+    graph.disconnect(0, 2);
+    assertNull(graph.getEdgeBetween(2, 0));
+    graph.remove(1);
+    assertFalse(graph.pathExists(0, 2));
+    assertTrue(graph.getEdgesFrom(0).isEmpty());
+    assertThrows(NoSuchElementException.class, () -> graph.remove(1));
+  }
+
+  @Test
+  @DisplayName("Testar samtidiga läsare och skrivare utan dödläge eller halva förbindelser.")
+  void concurrentReadersAndWriters() throws Exception {
+    int count = 200;
+    for (int i = 0; i < count; i++) {
+      graph.add(i);
+    }
+    for (int i = 1; i < count; i++) {
+      graph.connect(i - 1, i, "kedja", 1);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int seed = t;
+      futures.add(pool.submit(() -> {
+        Random random = new Random(seed);
+        for (int i = 0; i < 5000; i++) {
+          int a = random.nextInt(count);
+          int b = random.nextInt(count);
+          if (a == b) {
+            continue;
+          }
+          try {
+            if (random.nextBoolean()) {
+              graph.connect(a, b, "extra", random.nextInt(10));
+            } else {
+              graph.disconnect(a, b);
+            }
+          } catch (IllegalStateException expected) {
+            // förbindelsen fanns redan eller saknades
+          }
+        }
+      }));
+      futures.add(pool.submit(() -> {
+        Random random = new Random(seed + 100);
+        for (int i = 0; i < 500; i++) {
+          graph.findShortestPath(random.nextInt(count), random.nextInt(count));
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    // Varje förbindelse ska finnas åt båda hållen med samma vikt
+    for (int node : graph.getNodes()) {
+      for (Edge<Integer> edge : graph.getEdgesFrom(node)) {
+        Edge<Integer> back = graph.getEdgeBetween(edge.getDestination(), node);
+        assertNotNull(back, "Fel: förbindelsen saknas åt ena hållet.");
+        assertEquals(edge.getWeight(), back.getWeight());
+      }
+    }
+  }
+  @Test
+  @DisplayName("Testar att remove och connect samtidigt på samma nav inte lämnar halva förbindelser.")
+  void concurrentRemoveAndConnect() throws Exception {
+    int count = 100;
+    int hub = -1;
+    for (int i = 0; i < count; i++) {
+      graph.add(i);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 2; t++) {
+      int seed = t;
+      // Lägger till navet, kopplar det till många noder och tar bort det igen
+      futures.add(pool.submit(() -> {
+        Random random = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+          graph.add(hub);
+          for (int j = 0; j < 30; j++) {
+            try {
+              graph.connect(hub, random.nextInt(count), "nav", 1 + random.nextInt(9));
+            } catch (IllegalStateException | NoSuchElementException expected) {
+              // förbindelsen fanns redan eller navet togs bort av den andra tråden
+            }
+          }
+          try {
+            graph.remove(hub);
+          } catch (NoSuchElementException expected) {
+            // den andra tråden hann före
+          }
+        }
+      }));
+      // Kopplar noder till navet och till varandra medan navet kommer och går
+      futures.add(pool.submit(() -> {
+        Random random = new Random(seed + 100);
+        for (int i = 0; i < 5000; i++) {
+          int a = random.nextInt(count);
+          int b = random.nextBoolean() ? hub : random.nextInt(count);
+          try {
+            if (random.nextBoolean()) {
+              graph.connect(a, b, "extra", 1 + random.nextInt(9));
+            } else {
+              graph.disconnect(a, b);
+            }
+          } catch (IllegalStateException | NoSuchElementException expected) {
+            // förbindelsen fanns redan eller saknades, eller navet var borttaget
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    Set<Integer> nodes = graph.getNodes();
+    for (int node : nodes) {
+      for (Edge<Integer> edge : graph.getEdgesFrom(node)) {
+        assertTrue(nodes.contains(edge.getDestination()), "Fel: en båge går till en borttagen nod.");
+        Edge<Integer> back = graph.getEdgeBetween(edge.getDestination(), node);
+        assertNotNull(back, "Fel: förbindelsen saknas åt ena hållet.");
+        assertEquals(edge.getWeight(), back.getWeight());
+      }
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsrGraphTest {
+
+  private final ListGraph<String> source = new ListGraph<>();
+
+  private void createExampleGraph() {
+    for (String node : new String[] {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "X"}) {
+      source.add(node);
+    }
+    source.connect("A", "G", "A -> G", 3);
+    source.connect("G", "B", "G -> B", 28);
+    source.connect("B", "F", "B -> F", 5);
+    source.connect("F", "H", "F -> H", 1);
+    source.connect("H", "D", "H -> D", 1);
+    source.connect("H", "I", "H -> I", 3);
+    source.connect("D", "I", "D -> I", 1);
+    source.connect("B", "D", "B -> D", 2);
+    source.connect("B", "C", "B -> C", 3);
+    source.connect("C", "D", "C -> D", 5);
+    source.connect("E", "C", "E -> C", 2);
+    source.connect("E", "D", "E -> D", 2);
+    source.connect("J", "D", "J -> D", 5);
+  }
+
+  @Test
+  @DisplayName("Testar att den frysta grafen har samma noder och bågar.")
+  void freezeKeepsNodesAndEdges() {
+    createExampleGraph();
+    CsrGraph<String> frozen = CsrGraph.freeze(source);
+
+    assertEquals(source.getNodes(), frozen.getNodes());
+    for (String node : source.getNodes()) {
+      assertEquals(source.getEdgesFrom(node).size(), frozen.getEdgesFrom(node).size(), "Fel: fel antal bågar från " + node);
+      for (String other : source.getNodes()) {
+        Edge<String> expected = source.getEdgeBetween(node, other);
+        Edge<String> actual = frozen.getEdgeBetween(node, other);
+        assertEquals(expected == null ? null : expected.toString(), actual == null ? null : actual.toString());
+      }
+    }
+    assertThrows(NoSuchElementException.class, () -> frozen.getEdgeBetween("A", "ZZZZ"));
+  }
+
+  @Test
+  @DisplayName("Testar vägsökningar på den frysta grafen.")
+  void pathQueries() {
+    createExampleGraph();
+    CsrGraph<String> frozen = CsrGraph.freeze(source);
+
+    assertTrue(frozen.pathExists("A", "C"));
+    assertFalse(frozen.pathExists("A", "X"));
+    assertFalse(frozen.pathExists("A", "ZZZZ"));
+    assertEquals(31, TestGraphs.cost(frozen.getPath("A", "B")));
+    assertEquals(4, TestGraphs.cost(frozen.getShortestPath("D", "C")));
+    assertEquals(2, frozen.getFewestHopsPath("F", "D").size());
+    assertNull(frozen.getShortestPath("A", "X"));
+    assertTrue(frozen.getShortestPath("A", "A").isEmpty());
+  }
+
+  @Test
+  @DisplayName("Testar att kortaste vägen blir densamma som i ListGraph på en slumpgraf.")
+  void shortestPathMatchesListGraph() {
+    ListGraph<Integer> graph = new ListGraph<>();
+    Random random = new Random(11);
+    for (int i = 0; i < 400; i++) {
+      graph.add(i);
+    }
+    for (int i = 0; i < 1600; i++) {
+      int a = random.nextInt(400);
+      int b = random.nextInt(400);
+      if (a != b && graph.getEdgeBetween(a, b) == null) {
+        graph.connect(a, b, "e" + random.nextInt(3), random.nextInt(50));
+      }
+    }
+    CsrGraph<Integer> frozen = CsrGraph.freeze(graph);
+    for (int i = 0; i < 100; i++) {
+      int from = random.nextInt(400);
+      int to = random.nextInt(400);
+      assertEquals(graph.findShortestPath(from, to).getTotalWeight(), frozen.findShortestPath(from, to).getTotalWeight());
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att den frysta grafen inte kan ändras.")
+  void mutatorsThrow() {
+    createExampleGraph();
+    CsrGraph<String> frozen = CsrGraph.freeze(source);
+    assertThrows(UnsupportedOperationException.class, () -> frozen.add("K"));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.connect("A", "X", "A -> X", 1));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.setConnectionWeight("A", "G", 1));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.disconnect("A", "G"));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.remove("A"));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.getNodes().remove("A"));
+  }
+
+  @Test
+  @DisplayName("Testar vägsökningar som bara får använda vissa transportsätt.")
+  void modeFilteredPaths() {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    for (String node : new String[] {"Stockholm", "Oslo", "Berlin", "Paris", "London", "Dublin"}) {
+      graph.add(node);
+    }
+    graph.connect("Stockholm", "Paris", "Airplane", 3);
+    graph.connect("Stockholm", "Oslo", "Train", 2);
+    graph.connect("Stockholm", "Berlin", "Boat", 4);
+    graph.connect("Oslo", "Berlin", "Train", 3);
+    graph.connect("Berlin", "Paris", "Train", 4);
+    graph.connect("Paris", "London", "Train", 3);
+    graph.connect("London", "Dublin", "Boat", 2);
+    CsrGraph<String> frozen = CsrGraph.freeze(graph);
+
+    assertEquals(Set.of("Airplane", "Train", "Boat"), frozen.getModes(), "Fel: Fel transportsätt.");
+    assertEquals(3, TestGraphs.cost(frozen.getShortestPath("Stockholm", "Paris", ModeFilter.ALL)),
+        "Fel: Flyget är kortast.");
+    assertEquals(8, TestGraphs.cost(frozen.getShortestPath("Stockholm", "Paris", ModeFilter.forbid("Airplane"))),
+        "Fel: Utan flyg går båten och tåget via Berlin.");
+    List<Edge<String>> trains = frozen.getShortestPath("Stockholm", "Paris", ModeFilter.allow("Train"));
+    assertEquals(9, TestGraphs.cost(trains), "Fel: Med bara tåg går vägen via Oslo.");
+    assertTrue(trains.stream().allMatch(edge -> edge.getName().equals("Train")), "Fel: Vägen har annat än tåg.");
+    assertEquals(2, frozen.getFewestHopsPath("Stockholm", "Paris", ModeFilter.forbid("Airplane")).size(),
+        "Fel: Båten och tåget via Berlin är två bågar.");
+
+    assertNull(frozen.getShortestPath("Stockholm", "Dublin", ModeFilter.allow("Train")), "Fel: Dublin nås bara med båt.");
+    assertFalse(frozen.pathExists("Stockholm", "Dublin", ModeFilter.forbid("Boat")), "Fel: Dublin nås bara med båt.");
+    assertTrue(frozen.pathExists("Stockholm", "Dublin", ModeFilter.forbid("Airplane")), "Fel: Dublin nås med tåg och båt.");
+    assertFalse(frozen.pathExists("Stockholm", "Oslo", ModeFilter.allow()), "Fel: Inga transportsätt är tillåtna.");
+    assertEquals(0, frozen.getShortestPath("Oslo", "Oslo", ModeFilter.allow()).size(), "Fel: Start och mål är samma.");
+    assertEquals(frozen.getShortestPath("Stockholm", "Dublin").toString(), frozen.getShortestPath("Stockholm", "Dublin",
+        ModeFilter.forbid("Bus")).toString(), "Fel: Ett okänt transportsätt ska inte påverka vägen.");
+  }
+
+  @Test
+  @DisplayName("Testar att en båge utan namn aldrig matchar ett transportsätt.")
+  void modeFilterNullName() {
+    assertFalse(ModeFilter.allow("Train").permits(null), "Fel: Ett namnlöst transportsätt ska inte vara tillåtet.");
+    assertTrue(ModeFilter.forbid("Train").permits(null), "Fel: Ett namnlöst transportsätt ska inte vara förbjudet.");
+
+    ListGraph<String> graph = new ListGraph<>();
+    graph.add("A");
+    graph.add("B");
+    graph.add("C");
+    graph.connect("A", "B", null, 1);
+    graph.connect("B", "C", "Train", 1);
+    CsrGraph<String> frozen = CsrGraph.freeze(graph);
+    assertFalse(frozen.pathExists("A", "C", ModeFilter.allow("Train")), "Fel: Bågen utan namn är inte tåg.");
+    assertEquals(2, frozen.getShortestPath("A", "C", ModeFilter.forbid("Airplane")).size(),
+        "Fel: Bågen utan namn är inte flyg.");
+  }
+
+  @Test
+  @DisplayName("Testar att filtrerad sökning ger samma väg som en graf utan de förbjudna bågarna.")
+  void modeFilterMatchesRemovedEdges() {
+    Random random = new Random(25);
+    String[] modes = {"Train", "Airplane", "Boat", "Bus"};
+    ListGraph<String> all = new ListGraph<>();
+    ListGraph<String> noFlights = new ListGraph<>();
+    for (int i = 0; i < 300; i++) {
+      all.add("N" + i);
+      noFlights.add("N" + i);
+    }
+    for (int i = 0; i < 1200; i++) {
+      String a = "N" + random.nextInt(300);
+      String b = "N" + random.nextInt(300);
+      String mode = modes[random.nextInt(modes.length)];
+      int weight = 1 + random.nextInt(50);
+      if (!a.equals(b) && all.getEdgeBetween(a, b) == null) {
+        all.connect(a, b, mode, weight);
+        if (!mode.equals("Airplane")) {
+          noFlights.connect(a, b, mode, weight);
+        }
+      }
+    }
+    CsrGraph<String> frozen = CsrGraph.freeze(all);
+    ModeFilter filter = ModeFilter.forbid("Airplane");
+    for (int i = 0; i < 100; i++) {
+      String from = "N" + random.nextInt(300);
+      String to = "N" + random.nextInt(300);
+      List<Edge<String>> expected = noFlights.getShortestPath(from, to);
+      List<Edge<String>> actual = frozen.getShortestPath(from, to, filter);
+      assertEquals(expected == null, actual == null, "Fel: Olika svar om vägen finns från " + from + " till " + to);
+      if (expected != null) {
+        assertEquals(TestGraphs.cost(expected), TestGraphs.cost(actual),
+            "Fel: Olika längd från " + from + " till " + to);
+        assertEquals(noFlights.getFewestHopsPath(from, to).size(), frozen.getFewestHopsPath(from, to, filter).size(),
+            "Fel: Olika antal bågar från " + from + " till " + to);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceMatrixTest {
+
+  @TempDir
+  Path directory;
+
+  private final ListGraph<String> graph = new ListGraph<>();
+
+  @Test
+  @DisplayName("Testar att avstånden är lika med kortaste vägen mellan varje par.")
+  void matchesShortestPath() {
+    TestGraphs.randomGraph(graph, 60, 150, 5);
+    DistanceMatrix<String> matrix = DistanceMatrix.compute(graph, false);
+
+    assertEquals(60, matrix.size());
+    for (String from : graph.getNodes()) {
+      for (String to : graph.getNodes()) {
+        PathResult<String> expected = graph.findShortestPath(from, to);
+        int distance = matrix.distance(from, to);
+        if (expected.isFound()) {
+          assertEquals(expected.getTotalWeight(), distance, "Fel: Fel avstånd från " + from + " till " + to);
+        } else {
+          assertEquals(DistanceMatrix.UNREACHABLE, distance, "Fel: " + to + " ska inte gå att nå från " + from);
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att vägen från föregångarna har rätt längd.")
+  void reconstructsPaths() {
+    TestGraphs.randomGraph(graph, 40, 100, 9);
+    DistanceMatrix<String> matrix = DistanceMatrix.compute(graph, true);
+
+    for (String from : graph.getNodes()) {
+      for (String to : graph.getNodes()) {
+        List<String> path = matrix.getPath(from, to);
+        if (matrix.distance(from, to) == DistanceMatrix.UNREACHABLE) {
+          assertNull(path, "Fel: Det ska inte finnas någon väg.");
+          continue;
+        }
+        assertEquals(from, path.get(0));
+        assertEquals(to, path.get(path.size() - 1));
+        long total = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+          total += graph.getEdgeBetween(path.get(i), path.get(i + 1)).getWeight();
+        }
+        assertEquals(matrix.distance(from, to), total, "Fel: Vägen har fel längd.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en sparad matris läses tillbaka likadan.")
+  void writeAndRead() throws IOException {
+    TestGraphs.randomGraph(graph, 25, 60, 13);
+    DistanceMatrix<String> matrix = DistanceMatrix.compute(graph, true);
+    Path file = directory.resolve("avstand.bin");
+    matrix.write(file);
+
+    DistanceMatrix<String> read = DistanceMatrix.read(file);
+    assertTrue(read.hasPredecessors());
+    for (String from : graph.getNodes()) {
+      for (String to : graph.getNodes()) {
+        assertEquals(matrix.distance(from, to), read.distance(from, to), "Fel: Avståndet ändrades.");
+        assertEquals(matrix.getPath(from, to), read.getPath(from, to), "Fel: Vägen ändrades.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar minnesuppskattningen.")
+  void estimatesMemory() {
+    long bytes = DistanceMatrix.estimateBytes(20_000, false);
+    assertTrue(bytes >= 4L * 20_000 * 20_000 && bytes < 2L * 4 * 20_000 * 20_000, "Fel: Orimlig uppskattning.");
+    assertEquals(2 * bytes, DistanceMatrix.estimateBytes(20_000, true));
+  }
+}
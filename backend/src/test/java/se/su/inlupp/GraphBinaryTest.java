@@ -0,0 +1,101 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphBinaryTest {
+
+  @TempDir
+  Path directory;
+
+  private SpatialGraph<String> createExampleGraph() {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    graph.add("Stockholm", 470.0, 242.0);
+    graph.add("Berlin", 411.0, 368.0);
+    graph.add("Paris", 264.0, 416.0);
+    graph.add("Göteborg");
+    graph.connect("Stockholm", "Berlin", "Flyg", 3);
+    graph.connect("Berlin", "Paris", "Tåg", 10);
+    graph.connect("Stockholm", "Göteborg", "Tåg", 4);
+    return graph;
+  }
+
+  private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+    assertEquals(expected.getNodes(), actual.getNodes(), "Fel: Noderna skiljer sig.");
+    for (String node : expected.getNodes()) {
+      assertEquals(expected.getEdgesFrom(node).size(), actual.getEdgesFrom(node).size(), "Fel: Bågarna skiljer sig.");
+      for (Edge<String> edge : expected.getEdgesFrom(node)) {
+        Edge<String> other = actual.getEdgeBetween(node, edge.getDestination());
+        assertNotNull(other, "Fel: En båge saknas.");
+        assertEquals(edge.toString(), other.toString(), "Fel: Bågen skiljer sig.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en skriven graf läses tillbaka med bild, bågar och positioner.")
+  void writeAndLoad() throws IOException {
+    SpatialGraph<String> graph = createExampleGraph();
+    Path file = directory.resolve("karta.bin");
+    GraphBinary.write(file, "file:europa.gif", graph);
+
+    GraphBinary.Contents contents = GraphBinary.load(file);
+    CsrGraph<String> loaded = contents.getGraph();
+    assertEquals("file:europa.gif", contents.getImagePath(), "Fel: Fel sökväg till bilden.");
+    assertSameGraph(graph, loaded);
+    assertEquals(264.0, loaded.getX("Paris"), "Fel: Fel x-koordinat.");
+    assertEquals(368.0, loaded.getY("Berlin"), "Fel: Fel y-koordinat.");
+    assertFalse(loaded.hasPosition("Göteborg"), "Fel: Noden ska sakna position.");
+    assertEquals(13, loaded.findShortestPath("Stockholm", "Paris").getTotalWeight(), "Fel: Fel kortaste väg.");
+  }
+
+  @Test
+  @DisplayName("Testar konvertering från text till binärt och tillbaka.")
+  void convertsBetweenFormats() throws IOException {
+    Path text = directory.resolve("europa.graph");
+    Files.writeString(text, """
+        file:europa.gif
+        Stockholm;470.0;242.0;Berlin;411.0;368.0;Paris;264.0;416.0
+        Stockholm;Berlin;Airplane;3
+        Berlin;Stockholm;Airplane;3
+        Berlin;Paris;Train;10
+        Paris;Berlin;Train;10
+        """, StandardCharsets.UTF_8);
+    Path binary = directory.resolve("europa.bin");
+    Path back = directory.resolve("tillbaka.graph");
+    GraphBinary.textToBinary(text, binary);
+    GraphBinary.binaryToText(binary, back);
+
+    SpatialGraph<String> original = new SpatialGraph<>();
+    SpatialGraph<String> converted = new SpatialGraph<>();
+    assertEquals(GraphIO.read(text, original), GraphIO.read(back, converted), "Fel: Sökvägen till bilden ändrades.");
+    assertSameGraph(original, converted);
+    for (String node : original.getNodes()) {
+      assertEquals(original.getX(node), converted.getX(node), "Fel: Positionen ändrades.");
+      assertEquals(original.getY(node), converted.getY(node), "Fel: Positionen ändrades.");
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en fil i fel format eller som är avklippt ger IOException.")
+  void rejectsBadFiles() throws IOException {
+    Path text = directory.resolve("text.bin");
+    Files.writeString(text, "file:europa.gif\nA;1.0;2.0\n", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> GraphBinary.load(text));
+
+    Path file = directory.resolve("karta.bin");
+    GraphBinary.write(file, null, createExampleGraph());
+    byte[] bytes = Files.readAllBytes(file);
+    Path truncated = directory.resolve("avklippt.bin");
+    Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 20));
+    assertThrows(IOException.class, () -> GraphBinary.load(truncated));
+  }
+}
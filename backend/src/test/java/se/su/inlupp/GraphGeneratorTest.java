@@ -0,0 +1,85 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphGeneratorTest {
+
+  @TempDir
+  Path directory;
+
+  private static long edgeCount(Graph<String> graph) {
+    long count = 0;
+    for (String node : graph.getNodes()) {
+      count += graph.getEdgesFrom(node).size();
+    }
+    return count / 2;
+  }
+
+  @Test
+  @DisplayName("Testar att samma frö ger samma graf.")
+  void reproducible() {
+    for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+      SpatialGraph<String> first = new GraphGenerator(shape, 500, 6, 3).generate();
+      SpatialGraph<String> second = new GraphGenerator(shape, 500, 6, 3).generate();
+      assertEquals(first.getNodes(), second.getNodes(), "Fel: Noderna skiljer sig för " + shape);
+      for (String node : first.getNodes()) {
+        assertEquals(first.getX(node), second.getX(node), "Fel: Positionen skiljer sig för " + shape);
+        for (Edge<String> edge : first.getEdgesFrom(node)) {
+          Edge<String> other = second.getEdgeBetween(node, edge.getDestination());
+          assertNotNull(other, "Fel: En båge saknas för " + shape);
+          assertEquals(edge.getWeight(), other.getWeight(), "Fel: Vikten skiljer sig för " + shape);
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att formerna får rätt storlek och ungefär rätt grad.")
+  void sizeAndDegree() {
+    for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+      ListGraph<String> graph = new ListGraph<>();
+      new GraphGenerator(shape, 2000, 4, 1).generate(graph);
+      assertEquals(2000, graph.getNodes().size(), "Fel: Fel antal noder för " + shape);
+      double degree = 2.0 * edgeCount(graph) / 2000;
+      assertTrue(degree > 3 && degree < 5, "Fel: Graden " + degree + " är för långt från 4 för " + shape);
+    }
+
+    ListGraph<String> chain = new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.CHAIN, 100, 2, 1).generate(chain);
+    assertEquals(99, edgeCount(chain), "Fel: En kedja med grad 2 ska ha en båge mellan varje par i följd.");
+    assertEquals(99, chain.getFewestHopsPath("N0", "N99").size(), "Fel: Kedjan ska vara lång.");
+  }
+
+  @Test
+  @DisplayName("Testar att vikten i en geometrisk graf är avståndet mellan noderna.")
+  void geometricWeights() {
+    SpatialGraph<String> graph = new GraphGenerator(GraphGenerator.Shape.GEOMETRIC, 1000, 6, 5).generate();
+    for (String node : graph.getNodes()) {
+      for (Edge<String> edge : graph.getEdgesFrom(node)) {
+        String other = edge.getDestination();
+        double distance = Math.hypot(graph.getX(node) - graph.getX(other), graph.getY(node) - graph.getY(other));
+        assertEquals(Math.max(1, Math.round(distance)), edge.getWeight(), "Fel: Vikten ska vara avståndet.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en genererad fil kan läsas in igen.")
+  void writesFile() throws IOException {
+    Path file = directory.resolve("stor.graph");
+    GraphGenerator generator = new GraphGenerator(GraphGenerator.Shape.SCALE_FREE, 3000, 6, 8);
+    generator.write(file, "file:karta.gif");
+
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    assertEquals("file:karta.gif", GraphIO.read(file, graph), "Fel: Fel sökväg till bilden.");
+    assertEquals(3000, graph.getNodes().size(), "Fel: Fel antal noder.");
+    assertEquals(edgeCount(generator.generate()), edgeCount(graph), "Fel: Fel antal förbindelser.");
+  }
+}
@@ -0,0 +1,146 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphIOTest {
+
+  private static final String EUROPA = """
+      file:europa.gif
+      Stockholm;470.0;242.0;Paris;264.0;416.0;Berlin;411.0;368.0;Malmö;430.0;300.5
+      Stockholm;Berlin;Airplane;3
+      Berlin;Stockholm;Airplane;3
+      Paris;Berlin;Train;10
+      Berlin;Paris;Train;10
+      Malmö;Stockholm;Train;5
+      Stockholm;Malmö;Train;5
+      """;
+
+  @TempDir
+  Path directory;
+
+  private Path write(String content) throws IOException {
+    Path file = directory.resolve("test.graph");
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @Test
+  @DisplayName("Testar att en fil läses in med noder, positioner och förbindelser.")
+  void readsFile() throws IOException {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    String image = GraphIO.read(write(EUROPA), graph);
+
+    assertEquals("file:europa.gif", image, "Fel: Fel sökväg till bilden.");
+    assertEquals(Set.of("Stockholm", "Paris", "Berlin", "Malmö"), graph.getNodes(), "Fel: Fel noder.");
+    assertEquals(430.0, graph.getX("Malmö"), "Fel: Fel x-koordinat.");
+    assertEquals(300.5, graph.getY("Malmö"), "Fel: Fel y-koordinat.");
+    assertEquals(10, graph.getEdgeBetween("Berlin", "Paris").getWeight(), "Fel: Fel vikt.");
+    assertEquals("Train", graph.getEdgeBetween("Stockholm", "Malmö").getName(), "Fel: Fel namn.");
+    assertEquals(2, graph.getEdgesFrom("Stockholm").size(), "Fel: Förbindelser åt båda hållen ska bara läggas till en gång.");
+  }
+
+  @Test
+  @DisplayName("Testar att en sparad graf läses tillbaka likadan.")
+  void roundTrip() throws IOException {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    GraphIO.read(write(EUROPA), graph);
+    Path copy = directory.resolve("copy.graph");
+    GraphIO.write(copy, "file:europa.gif", graph);
+
+    SpatialGraph<String> reread = new SpatialGraph<>();
+    assertEquals("file:europa.gif", GraphIO.read(copy, reread), "Fel: Fel sökväg till bilden.");
+    assertEquals(graph.getNodes(), reread.getNodes(), "Fel: Noderna skiljer sig.");
+    for (String node : graph.getNodes()) {
+      assertEquals(graph.getX(node), reread.getX(node), "Fel: Positionen skiljer sig.");
+      assertEquals(graph.getY(node), reread.getY(node), "Fel: Positionen skiljer sig.");
+      assertEquals(graph.getEdgesFrom(node).size(), reread.getEdgesFrom(node).size(), "Fel: Bågarna skiljer sig.");
+      for (Edge<String> edge : graph.getEdgesFrom(node)) {
+        Edge<String> other = reread.getEdgeBetween(node, edge.getDestination());
+        assertNotNull(other, "Fel: En båge saknas.");
+        assertEquals(edge.getName(), other.getName(), "Fel: Bågnamnet skiljer sig.");
+        assertEquals(edge.getWeight(), other.getWeight(), "Fel: Vikten skiljer sig.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att fel format på en förbindelse ger IOException med radnummer.")
+  void badEdgeLine() throws IOException {
+    Path file = write("karta.gif\nA;1.0;2.0;B;3.0;4.0\nA;B;Buss\n");
+    IOException e = assertThrows(IOException.class, () -> GraphIO.read(file, new SpatialGraph<>()));
+    assertTrue(e.getMessage().contains("rad 3"), "Fel: Radnumret saknas i felmeddelandet.");
+
+    Path weight = write("karta.gif\nA;1.0;2.0;B;3.0;4.0\nA;B;Buss;tio\n");
+    assertThrows(IOException.class, () -> GraphIO.read(weight, new SpatialGraph<>()));
+  }
+
+  @Test
+  @DisplayName("Testar att radslut med CR och tomma rader hanteras.")
+  void windowsLineEndings() throws IOException {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    GraphIO.read(write("karta.gif\r\nA;1.5;-2.0;B;3;4e1\r\n\r\nA;B;Buss;7\r\n"), graph);
+    assertEquals(-2.0, graph.getY("A"), "Fel: Fel y-koordinat.");
+    assertEquals(40.0, graph.getY("B"), "Fel: Fel y-koordinat.");
+    assertEquals(7, graph.getEdgeBetween("B", "A").getWeight(), "Fel: Fel vikt.");
+  }
+
+  @Test
+  @DisplayName("Testar att varje förbindelse skrivs en gång med #undirected och läses tillbaka.")
+  void undirectedRoundTrip() throws IOException {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    GraphIO.read(write(EUROPA), graph);
+    graph.connect("Paris", "Paris", "Runt", 1);
+    Path copy = directory.resolve("halv.graph");
+    GraphIO.write(copy, "file:europa.gif", graph, true);
+
+    List<String> lines = Files.readAllLines(copy, StandardCharsets.UTF_8);
+    assertEquals(GraphIO.UNDIRECTED, lines.get(2), "Fel: Markeringen saknas.");
+    assertEquals(4, lines.size() - 3, "Fel: Varje förbindelse ska stå en gång.");
+
+    SpatialGraph<String> reread = new SpatialGraph<>();
+    GraphIO.read(copy, reread);
+    for (String node : graph.getNodes()) {
+      assertEquals(graph.getEdgesFrom(node).size(), reread.getEdgesFrom(node).size(), "Fel: Bågarna skiljer sig.");
+    }
+    assertEquals(10, reread.getEdgeBetween("Paris", "Berlin").getWeight(), "Fel: Fel vikt.");
+  }
+
+  @Test
+  @DisplayName("Testar att en dubblett i en #undirected-fil ger IOException.")
+  void undirectedDuplicate() throws IOException {
+    Path file = write("karta.gif\nA;1.0;2.0;B;3.0;4.0\n#undirected\nA;B;Buss;3\nB;A;Buss;3\n");
+    IOException e = assertThrows(IOException.class, () -> GraphIO.read(file, new SpatialGraph<>()));
+    assertTrue(e.getMessage().contains("rad 5"), "Fel: Radnumret saknas i felmeddelandet.");
+  }
+  @Test
+  @DisplayName("Testar att förbindelser för en nod vars namn börjar med # läses in.")
+  void hashNodeNames() throws IOException {
+    Path file = write("karta.gif\n#1;1.0;2.0;B;3.0;4.0;#undirected;5.0;6.0\n#1;B;Buss;3\nB;#1;Buss;3\n"
+        + "#undirected;#1;Tåg;2\n#1;#undirected;Tåg;2\n");
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    GraphIO.read(file, graph);
+    assertEquals(3, graph.getEdgeBetween("#1", "B").getWeight(), "Fel: Förbindelsen från #1 saknas.");
+    assertEquals(2, graph.getEdgeBetween("#1", "#undirected").getWeight(), "Fel: Förbindelsen till #undirected saknas.");
+    assertEquals(2, graph.getEdgesFrom("#1").size(), "Fel: Fel antal bågar från #1.");
+  }
+
+  @Test
+  @DisplayName("Testar att #undirected bara känns igen som första förbindelserad.")
+  void undirectedMarkerOnlyFirst() throws IOException {
+    Path late = write("karta.gif\nA;1.0;2.0;B;3.0;4.0\nA;B;Buss;3\n#undirected\n");
+    IOException e = assertThrows(IOException.class, () -> GraphIO.read(late, new SpatialGraph<>()));
+    assertTrue(e.getMessage().contains("rad 4"), "Fel: En sen markering ska ge formatfel.");
+
+    Path comment = write("karta.gif\nA;1.0;2.0;B;3.0;4.0\n# kommentar\nA;B;Buss;3\n");
+    assertThrows(IOException.class, () -> GraphIO.read(comment, new SpatialGraph<>()), "Fel: Formatet har inga kommentarer.");
+  }
+}
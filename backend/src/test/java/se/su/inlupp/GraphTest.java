@@ -134,6 +134,27 @@ public class GraphTest {
     assertThrows(NoSuchElementException.class, () -> graph.remove(INVALID_NODE_1), NO_SUCH_ELEMENT_EXCEPTION_BORDE_HA_KASTATS);
   }
 
+  @Test
+  @Order(44)
+  @DisplayName("Testar att ta bort flera noder med removeAll.")
+  void test04_removeAll() {
+    createExampleGraph();
+
+    graph.removeAll(List.of("D", "H", VALID_NODE_3));
+
+    assertFalse(graph.getNodes().contains("D"), "Fel: grafen innehåller fortfarande noden efter removeAll.");
+    assertEquals(STANDARD_NODES.length - 3, graph.getNodes().size(), GET_NODES_INCORRECT_CONTENT);
+    for (String node : graph.getNodes()) {
+      for (Edge<String> edge : graph.getEdgesFrom(node)) {
+        assertTrue(graph.getNodes().contains(edge.getDestination()), "Fel: det finns kvar en båge till en borttagen nod.");
+      }
+    }
+    assertEquals(2, graph.getEdgesFrom(VALID_NODE_2).size(), "Fel: B borde ha kvar bågarna till C och F.");
+    assertFalse(graph.pathExists("C", "I"), ERROR_NONMISSING_PATH);
+    assertThrows(NoSuchElementException.class, () -> graph.removeAll(List.of(VALID_NODE_1, INVALID_NODE_1)), NO_SUCH_ELEMENT_EXCEPTION_BORDE_HA_KASTATS);
+    assertTrue(graph.getNodes().contains(VALID_NODE_1), "Fel: removeAll ska inte ändra grafen om en nod saknas.");
+  }
+
   @Test
   @Order(50)
   @DisplayName("Testar getNodes.")
@@ -145,6 +166,33 @@ public class GraphTest {
     assertTrue(nodes.containsAll(Arrays.asList(STANDARD_NODES)), GET_NODES_INCORRECT_CONTENT);
   }
 
+  @Test
+  @Order(52)
+  @DisplayName("Testar att getNodes och getEdgesFrom inte kan ändras.")
+  void test05_views_are_unmodifiable() {
+    createExampleGraph();
+    assertThrows(UnsupportedOperationException.class, () -> graph.getNodes().remove(VALID_NODE_1));
+    assertThrows(UnsupportedOperationException.class, () -> graph.getEdgesFrom(VALID_NODE_1).clear());
+    assertTrue(graph.getNodes().contains(VALID_NODE_1), "Fel: noden borde finnas kvar.");
+  }
+
+  @Test
+  @Order(54)
+  @DisplayName("Testar forEachNode och forEachEdge.")
+  void test05_forEach() {
+    createExampleGraph();
+    var nodes = new HashSet<String>();
+    graph.forEachNode(nodes::add);
+    assertEquals(Set.of(STANDARD_NODES), nodes, GET_NODES_INCORRECT_CONTENT);
+
+    var edges = new ArrayList<String>();
+    graph.forEachEdge((from, edge) -> edges.add(from + edge.getDestination()));
+    assertEquals(26, edges.size(), "Fel: varje förbindelse borde besökas en gång per riktning.");
+    assertTrue(edges.containsAll(List.of("AG", "GA")), "Fel: förbindelsen A-G saknas.");
+
+    assertThrows(ConcurrentModificationException.class, () -> graph.forEachNode(node -> graph.add(node + "2")));
+  }
+
   @Test
   @Order(60)
   @DisplayName("Testar connect med noder som har en båge.")
@@ -208,6 +256,32 @@ public class GraphTest {
     assertThrows(IllegalStateException.class, () -> graph.disconnect(VALID_NODE_1, VALID_NODE_2), ILLEGAL_STATE_EXCEPTION_BORDE_HA_KASTATS);
   }
 
+  @Test
+  @Order(74)
+  @DisplayName("Testar connect, disconnect och getEdgeBetween för en nod med många bågar.")
+  void test07_disconnect_hub() {
+    graph.add("hub");
+    for (int i = 0; i < 1000; i++) {
+      graph.add("N" + i);
+      graph.connect("hub", "N" + i, "hub -> N" + i, i);
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      graph.disconnect("N" + i, "hub");
+    }
+    graph.setConnectionWeight("hub", "N999", 1);
+    for (int i = 0; i < 1000; i++) {
+      var edge = graph.getEdgeBetween("hub", "N" + i);
+      if (i % 2 == 0) {
+        assertNull(edge, ERROR_NONMISSING_EDGE);
+      } else {
+        assertNotNull(edge, ERROR_MISSING_EDGE);
+        assertEquals("hub -> N" + i, edge.getName());
+        assertEquals(i == 999 ? 1 : i, edge.getWeight());
+      }
+    }
+    assertEquals(500, graph.getEdgesFrom("hub").size());
+  }
+
   @Test
   @Order(80)
   @DisplayName("Testar getEdgeBetween av edge som finns (A-G).")
@@ -306,6 +380,34 @@ public class GraphTest {
     assertFalse(graph.pathExists(VALID_NODE_1, VALID_NODE_NOT_CONNECTED));
   }
 
+  @Test
+  @Order(106)
+  @DisplayName("Testar pathExists med index över sammanhängande komponenter.")
+  void test10_pathExists_connectivity_index() {
+    ListGraph<String> indexed = new ListGraph<>();
+    indexed.setConnectivityIndexEnabled(true);
+    for (String node : STANDARD_NODES) {
+      indexed.add(node);
+    }
+    indexed.connect("A", "G", "A -> G", 3);
+    indexed.connect("G", "B", "G -> B", 28);
+    indexed.connect("B", "C", "B -> C", 3);
+
+    assertTrue(indexed.pathExists("A", "C"), "Fel: det borde ha funnits en väg mellan noderna.");
+    assertFalse(indexed.pathExists("A", VALID_NODE_NOT_CONNECTED), ERROR_NONMISSING_PATH);
+    assertEquals(1, indexed.getConnectivityRebuilds(), "Fel: indexet borde ha byggts en gång.");
+
+    indexed.connect("C", VALID_NODE_NOT_CONNECTED, "C -> X", 1);
+    assertTrue(indexed.pathExists("A", VALID_NODE_NOT_CONNECTED), "Fel: connect borde ha uppdaterat indexet.");
+    assertEquals(1, indexed.getConnectivityRebuilds(), "Fel: connect ska inte kräva ombyggnad.");
+
+    indexed.disconnect("G", "B");
+    assertFalse(indexed.pathExists("A", "C"), ERROR_NONMISSING_PATH);
+    assertEquals(2, indexed.getConnectivityRebuilds(), "Fel: disconnect borde ha gett en ombyggnad.");
+    assertEquals(4, indexed.getConnectivityHits(), "Fel: alla pathExists borde ha besvarats av indexet.");
+    assertFalse(indexed.pathExists("A", INVALID_NODE_1));
+  }
+
   @Test
   @Order(110)
   @DisplayName("Testar getPath för noder som har en väg.")
@@ -327,6 +429,55 @@ public class GraphTest {
     assertNull(invalidPath, ERROR_NONMISSING_PATH);
   }
 
+  @Test
+  @Order(112)
+  @DisplayName("Testar getShortestPath för noder med flera vägar.")
+  void test11_getShortestPath_cheapest_path() {
+    createExampleGraph();
+    var path = graph.getShortestPath("D", "C");
+    var cost = path.stream().map(Edge<String>::getWeight).reduce(0, Integer::sum);
+    assertEquals(4, cost, "Fel: den billigaste vägen mellan D och C borde kosta 4.");
+    assertEquals("C", path.get(path.size() - 1).getDestination(), "Fel: vägen slutar inte i målnoden.");
+
+    graph.setConnectionWeight("C", "D", 1);
+    assertEquals(1, graph.getShortestPath("D", "C").size(), "Fel: den direkta bågen borde vara billigast efter setConnectionWeight.");
+  }
+
+  @Test
+  @Order(114)
+  @DisplayName("Testar getShortestPath för noder som inte har en väg.")
+  void test11_getShortestPath_non_existing_path() {
+    createExampleGraph();
+    assertNull(graph.getShortestPath(VALID_NODE_1, VALID_NODE_NOT_CONNECTED), ERROR_NONMISSING_PATH);
+    assertNull(graph.getShortestPath(VALID_NODE_1, INVALID_NODE_1), ERROR_NONMISSING_PATH);
+    assertTrue(graph.getShortestPath(VALID_NODE_1, VALID_NODE_1).isEmpty(), "Fel: vägen från en nod till sig själv borde vara tom.");
+  }
+
+  @Test
+  @Order(116)
+  @DisplayName("Testar getFewestHopsPath för noder med flera vägar.")
+  void test11_getFewestHopsPath() {
+    createExampleGraph();
+    assertEquals(2, graph.getFewestHopsPath("F", "D").size(), "Fel: vägen med minst antal bågar mellan F och D borde vara 2 steg lång.");
+    assertEquals(3, graph.getFewestHopsPath(VALID_NODE_1, "C").size(), "Fel: vägen med minst antal bågar mellan A och C borde vara 3 steg lång.");
+    assertNull(graph.getFewestHopsPath(VALID_NODE_1, VALID_NODE_NOT_CONNECTED), ERROR_NONMISSING_PATH);
+  }
+
+  @Test
+  @Order(118)
+  @DisplayName("Testar pathExists och getPath på en lång kedja utan att stacken tar slut.")
+  void test11_getPath_long_chain() {
+    int length = 100_000;
+    for (int i = 0; i < length; i++) {
+      graph.add("N" + i);
+    }
+    for (int i = 1; i < length; i++) {
+      graph.connect("N" + (i - 1), "N" + i, "kedja", 1);
+    }
+    assertTrue(graph.pathExists("N0", "N" + (length - 1)), "Fel: det borde ha funnits en väg längs kedjan.");
+    assertEquals(length - 1, graph.getPath("N0", "N" + (length - 1)).size(), "Fel: vägen längs kedjan har fel längd.");
+  }
+
   @Test
   @Order(122)
   @DisplayName("Testar setConnectionWeight för nod som inte finns.")
@@ -427,4 +578,40 @@ public class GraphTest {
 
     assertThrows(IllegalArgumentException.class, () -> edge.setWeight(-1), ILLEGAL_ARGUMENT_EXCEPTION_BORDE_HA_KASTATS);
   }
+
+  @Test
+  @Order(160)
+  @DisplayName("Testar disconnect och remove på en nod med en ögla och grannar.")
+  void test16_disconnectSelfLoop() {
+    add("x", "y");
+    graph.connect("x", "x", "ögla", 1);
+    graph.connect("x", "y", "väg", 2);
+
+    graph.disconnect("x", "x");
+    assertNull(graph.getEdgeBetween("x", "x"), ERROR_NONMISSING_EDGE);
+    assertNotNull(graph.getEdgeBetween("x", "y"), ERROR_MISSING_EDGE);
+    assertNotNull(graph.getEdgeBetween("y", "x"), ERROR_MISSING_EDGE);
+    assertEquals(1, graph.getEdgesFrom("x").size(), "Fel: x ska bara ha bågen till y kvar.");
+
+    graph.remove("x");
+    assertTrue(graph.getEdgesFrom("y").isEmpty(), "Fel: y ska inte ha kvar någon båge till den borttagna noden.");
+
+    // Med många grannar slås bågarna upp i ett index i stället för i listan
+    add("x");
+    graph.connect("x", "x", "ögla", 1);
+    for (int i = 0; i < 12; i++) {
+      add("n" + i);
+      graph.connect("x", "n" + i, "väg", 2);
+    }
+    graph.disconnect("x", "x");
+    assertNull(graph.getEdgeBetween("x", "x"), ERROR_NONMISSING_EDGE);
+    for (int i = 0; i < 12; i++) {
+      assertNotNull(graph.getEdgeBetween("x", "n" + i), ERROR_MISSING_EDGE);
+    }
+    graph.connect("x", "x", "ögla", 1);
+    graph.disconnect("x", "n0");
+    assertNotNull(graph.getEdgeBetween("x", "x"), ERROR_MISSING_EDGE);
+    graph.disconnect("x", "x");
+    assertEquals(11, graph.getEdgesFrom("x").size(), "Fel: x ska ha elva bågar kvar.");
+  }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedGraphTest {
+
+  private InstrumentedGraph<String> graph;
+
+  @BeforeEach
+  void setUp() {
+    graph = new InstrumentedGraph<>(new GraphGenerator(GraphGenerator.Shape.GRID, 100, 4, 1).generate());
+  }
+
+  @Test
+  @DisplayName("Testar att anropen räknas per operation och att expanderade noder registreras.")
+  void countsCalls() {
+    graph.getEdgesFrom("N0");
+    graph.getEdgesFrom("N1");
+    graph.getEdgeBetween("N0", "N1");
+    graph.connect("N0", "N99", "genväg", 1);
+    PathResult<String> result = graph.findShortestPath("N0", "N55");
+    graph.getShortestPath("N0", "N55");
+    assertThrows(NoSuchElementException.class, () -> graph.getEdgesFrom("X"));
+
+    InstrumentedGraph.Snapshot snapshot = graph.snapshot();
+    assertEquals(3, snapshot.getCalls(InstrumentedGraph.Operation.GET_EDGES_FROM), "Fel: Misslyckade anrop ska också räknas.");
+    assertEquals(1, snapshot.getCalls(InstrumentedGraph.Operation.GET_EDGE_BETWEEN), "Fel: Fel antal.");
+    assertEquals(1, snapshot.getCalls(InstrumentedGraph.Operation.CONNECT), "Fel: Fel antal.");
+    assertEquals(2, snapshot.getCalls(InstrumentedGraph.Operation.GET_SHORTEST_PATH), "Fel: Fel antal.");
+    assertEquals(2, snapshot.getVisitedNodes().getCount(), "Fel: Fel antal sökningar.");
+    assertTrue(snapshot.getVisitedNodes().getMax() >= result.getExpandedNodes(), "Fel: Expanderade noder saknas.");
+    assertEquals(7, graph.getCalls(), "Fel: Fel totalt antal.");
+
+    graph.reset();
+    assertEquals(0, graph.getCalls(), "Fel: reset ska nollställa.");
+  }
+
+  @Test
+  @DisplayName("Testar att inget mäts när mätningen är avstängd.")
+  void disabled() {
+    graph.setEnabled(false);
+    graph.getEdgesFrom("N0");
+    graph.findShortestPath("N0", "N55");
+    assertEquals(0, graph.getCalls(), "Fel: Avstängd mätning ska inte räkna.");
+    assertEquals(0, graph.getVisitedNodes().getCount(), "Fel: Avstängd mätning ska inte räkna.");
+    assertTrue(graph.getShortestPath("N0", "N55") != null, "Fel: Anropen ska fortfarande gå igenom.");
+
+    graph.setEnabled(true);
+    graph.getEdgesFrom("N0");
+    assertEquals(1, graph.getCalls(), "Fel: Påslagen mätning ska räkna.");
+  }
+
+  @Test
+  @DisplayName("Testar att siffrorna kan läsas över JMX.")
+  void jmx() throws JMException {
+    ObjectName name = graph.register("test");
+    try {
+      graph.getEdgesFrom("N0");
+      graph.pathExists("N0", "N99");
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertEquals(2L, server.getAttribute(name, "Calls"), "Fel: Fel antal över JMX.");
+      TabularData latencies = (TabularData) server.getAttribute(name, "LatencyNanos");
+      assertEquals(2, latencies.size(), "Fel: Två operationer har anropats.");
+      CompositeData row = latencies.get(new Object[] {"PATH_EXISTS"});
+      assertEquals(1L, ((CompositeData) row.get("value")).get("count"), "Fel: Fel antal för PATH_EXISTS.");
+
+      server.setAttribute(name, new Attribute("Enabled", false));
+      assertFalse(graph.isEnabled(), "Fel: Mätningen ska gå att stänga av över JMX.");
+      assertThrows(IllegalStateException.class, () -> graph.register("test"));
+    } finally {
+      graph.unregister();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name), "Fel: Grafen är kvar i servern.");
+  }
+}
@@ -0,0 +1,102 @@
+package se.su.inlupp;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventsTest {
+
+  @TempDir
+  Path directory;
+
+  private List<RecordedEvent> record(Runnable work) throws IOException {
+    Path dump = directory.resolve("test.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(PathSearchEvent.class);
+      recording.enable(GraphLoadEvent.class);
+      recording.enable(GraphSaveEvent.class);
+      recording.start();
+      work.run();
+      recording.stop();
+      recording.dump(dump);
+    }
+    List<RecordedEvent> events = new ArrayList<>();
+    for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+      if (event.getEventType().getName().startsWith("se.su.inlupp.")) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+  }
+
+  @Test
+  @DisplayName("Testar att vägsökningar ger händelser med storlek, ändpunkter och resultat.")
+  void pathSearchEvents() throws IOException {
+    SpatialGraph<String> graph = new GraphGenerator(GraphGenerator.Shape.GRID, 100, 4, 1).generate();
+    CsrGraph<String> frozen = CsrGraph.freeze(graph);
+    PathResult<String> expected = graph.findShortestPath("N0", "N99");
+
+    List<RecordedEvent> events = named(record(() -> {
+      graph.findShortestPath("N0", "N99");
+      graph.getFewestHopsPath("N0", "N99");
+      frozen.pathExists("N0", "N99");
+    }), "se.su.inlupp.PathSearch");
+
+    assertEquals(3, events.size(), "Fel: Fel antal händelser.");
+    RecordedEvent astar = events.get(0);
+    assertEquals("astar", astar.getString("algorithm"), "Fel: SpatialGraph med positioner söker med A*.");
+    assertEquals(100, astar.getInt("nodes"), "Fel: Fel storlek.");
+    assertEquals("N0", astar.getString("from"), "Fel: Fel startnod.");
+    assertEquals("N99", astar.getString("to"), "Fel: Fel målnod.");
+    assertEquals(expected.getExpandedNodes(), astar.getInt("expandedNodes"), "Fel: Fel antal expanderade noder.");
+    assertEquals(expected.getEdges().size(), astar.getInt("pathLength"), "Fel: Fel väglängd.");
+    assertEquals(expected.getTotalWeight(), astar.getLong("pathWeight"), "Fel: Fel vikt.");
+    assertEquals(18, events.get(1).getInt("pathLength"), "Fel: BFS ska ge 18 bågar i ett 10x10-rutnät.");
+    assertEquals("CsrGraph", events.get(2).getString("graphType"), "Fel: Fel graftyp.");
+    assertTrue(events.get(2).getBoolean("found"), "Fel: Vägen finns.");
+  }
+
+  @Test
+  @DisplayName("Testar att sparning och inläsning ger händelser med byte, noder och bågar.")
+  void fileEvents() throws IOException {
+    SpatialGraph<String> graph = new GraphGenerator(GraphGenerator.Shape.CHAIN, 50, 2, 1).generate();
+    Path text = directory.resolve("kedja.graph");
+    Path binary = directory.resolve("kedja.bin");
+
+    List<RecordedEvent> events = record(() -> {
+      try {
+        GraphIO.write(text, "file:karta.gif", graph, true);
+        GraphIO.read(text, new SpatialGraph<>());
+        GraphBinary.write(binary, "file:karta.gif", graph);
+        GraphBinary.load(binary);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    List<RecordedEvent> saves = named(events, "se.su.inlupp.GraphSave");
+    List<RecordedEvent> loads = named(events, "se.su.inlupp.GraphLoad");
+    assertEquals(2, saves.size(), "Fel: Fel antal sparningar.");
+    assertEquals(2, loads.size(), "Fel: Fel antal inläsningar.");
+    assertEquals(Files.size(text), saves.get(0).getLong("bytes"), "Fel: Fel antal byte.");
+    assertEquals(49, saves.get(0).getLong("edges"), "Fel: Varje förbindelse ska räknas en gång.");
+    assertEquals(50, loads.get(0).getInt("nodes"), "Fel: Fel antal noder.");
+    assertEquals(49, loads.get(0).getLong("edges"), "Fel: Fel antal bågar.");
+    assertEquals("binary", loads.get(1).getString("format"), "Fel: Fel format.");
+    assertEquals(Files.size(binary), loads.get(1).getLong("bytes"), "Fel: Fel antal byte.");
+    assertEquals(98, loads.get(1).getLong("edges"), "Fel: Binärformatet lagrar båda riktningarna.");
+  }
+}
@@ -0,0 +1,104 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KShortestPathsTest {
+
+  private final ListGraph<Integer> graph = new ListGraph<>();
+
+  private void createRandomGraph(int count, int edges, long seed) {
+    Random random = new Random(seed);
+    for (int i = 0; i < count; i++) {
+      graph.add(i);
+    }
+    for (int i = 0; i < edges; i++) {
+      int from = random.nextInt(count);
+      int to = random.nextInt(count);
+      if (from != to && graph.getEdgeBetween(from, to) == null) {
+        graph.connect(from, to, "väg", 1 + random.nextInt(9));
+      }
+    }
+  }
+
+  // Vikterna för alla enkla vägar, sorterade, genom uttömmande sökning
+  private List<Long> allSimplePathWeights(int from, int to) {
+    List<Long> weights = new ArrayList<>();
+    collect(from, to, new HashSet<>(Set.of(from)), 0, weights);
+    Collections.sort(weights);
+    return weights;
+  }
+
+  private void collect(int current, int to, Set<Integer> visited, long weight, List<Long> weights) {
+    if (current == to) {
+      weights.add(weight);
+      return;
+    }
+    for (Edge<Integer> edge : graph.getEdgesFrom(current)) {
+      if (visited.add(edge.getDestination())) {
+        collect(edge.getDestination(), to, visited, weight + edge.getWeight(), weights);
+        visited.remove(edge.getDestination());
+      }
+    }
+  }
+
+  private void assertSimpleAndConnected(int from, int to, List<Edge<Integer>> path) {
+    Set<Integer> visited = new HashSet<>(Set.of(from));
+    int current = from;
+    for (Edge<Integer> edge : path) {
+      assertNotNull(graph.getEdgeBetween(current, edge.getDestination()), "Fel: Vägen hänger inte ihop.");
+      assertTrue(visited.add(edge.getDestination()), "Fel: Vägen besöker en nod två gånger.");
+      current = edge.getDestination();
+    }
+    assertEquals(to, current, "Fel: Vägen slutar inte i målet.");
+  }
+
+  @Test
+  @DisplayName("Testar att de k kortaste vägarna har samma vikter som en uttömmande sökning.")
+  void matchesExhaustiveSearch() {
+    createRandomGraph(12, 24, 3);
+    for (int from = 0; from < 4; from++) {
+      for (int to = 6; to < 10; to++) {
+        List<Long> expected = allSimplePathWeights(from, to);
+        List<List<Edge<Integer>>> paths = graph.getShortestPaths(from, to, 8);
+        assertEquals(Math.min(8, expected.size()), paths.size(), "Fel: Fel antal vägar.");
+        for (int i = 0; i < paths.size(); i++) {
+          assertSimpleAndConnected(from, to, paths.get(i));
+          assertEquals((long) expected.get(i), TestGraphs.cost(paths.get(i)),
+              "Fel: Väg " + (i + 1) + " har fel vikt.");
+        }
+        Set<List<Edge<Integer>>> distinct = new HashSet<>(paths);
+        assertEquals(paths.size(), distinct.size(), "Fel: Samma väg förekommer flera gånger.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att standardimplementationen ger samma vikter som ListGraph.")
+  void defaultMatchesListGraph() {
+    createRandomGraph(40, 100, 17);
+    CsrGraph<Integer> frozen = CsrGraph.freeze(graph);
+    for (int to = 1; to < 10; to++) {
+      List<List<Edge<Integer>>> expected = graph.getShortestPaths(0, to, 6);
+      List<List<Edge<Integer>>> actual = frozen.getShortestPaths(0, to, 6);
+      assertEquals(expected.size(), actual.size(), "Fel: Fel antal vägar.");
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(TestGraphs.cost(expected.get(i)), TestGraphs.cost(actual.get(i)),
+            "Fel: Väg " + (i + 1) + " har fel vikt.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att saknade noder och vägar ger en tom lista.")
+  void noPath() {
+    createRandomGraph(5, 0, 1);
+    assertTrue(graph.getShortestPaths(0, 4, 3).isEmpty());
+    assertTrue(graph.getShortestPaths(0, 99, 3).isEmpty());
+    assertEquals(1, graph.getShortestPaths(2, 2, 3).size(), "Fel: Från en nod till sig själv finns en tom väg.");
+    assertThrows(IllegalArgumentException.class, () -> graph.getShortestPaths(0, 4, 0));
+  }
+}
@@ -0,0 +1,60 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListGraphTest {
+
+  @Test
+  @DisplayName("Testar att flera trådar kan söka samtidigt i en graf som inte ändras.")
+  void concurrentReads() throws Exception {
+    ListGraph<String> graph = new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.GEOMETRIC, 2000, 6, 7).generate(graph);
+    graph.setConnectivityIndexEnabled(true);
+    Random random = new Random(1);
+    List<String[]> queries = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      String from = GraphGenerator.name(random.nextInt(2000));
+      String to = GraphGenerator.name(random.nextInt(2000));
+      queries.add(new String[] {from, to});
+      expected.add(answer(graph, from, to));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          List<String> answers = new ArrayList<>();
+          for (String[] query : queries) {
+            answers.add(answer(graph, query[0], query[1]));
+          }
+          return answers;
+        }));
+      }
+      for (Future<List<String>> future : futures) {
+        List<String> answers = future.get();
+        for (int i = 0; i < queries.size(); i++) {
+          assertEquals(expected.get(i), answers.get(i), "Fel: Samtidiga sökningar gav ett annat svar från "
+              + queries.get(i)[0] + " till " + queries.get(i)[1]);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static String answer(ListGraph<String> graph, String from, String to) {
+    List<Edge<String>> shortest = graph.getShortestPath(from, to);
+    List<Edge<String>> hops = graph.getFewestHopsPath(from, to);
+    List<Edge<String>> path = graph.getPath(from, to);
+    long weight = shortest == null ? -1 : shortest.stream().mapToLong(Edge::getWeight).sum();
+    return graph.pathExists(from, to) + " " + weight + " " + (hops == null ? -1 : hops.size()) + " "
+        + (path == null ? -1 : path.size());
+  }
+}
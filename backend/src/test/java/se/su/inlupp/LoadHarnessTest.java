@@ -0,0 +1,87 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadHarnessTest {
+
+  @Test
+  @DisplayName("Testar att percentilerna ligger inom histogrammets upplösning.")
+  void histogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(99), "Fel: Ett tomt histogram ska ge 0.");
+    for (long value = 1; value <= 100_000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(100_000, histogram.getCount(), "Fel: Fel antal.");
+    long p50 = histogram.getPercentile(50);
+    long p99 = histogram.getPercentile(99);
+    assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000L * 65 / 64, "Fel: p50 är " + p50);
+    assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000L * 65 / 64, "Fel: p99 är " + p99);
+    assertTrue(histogram.getMax() >= 100_000_000, "Fel: Max är för litet.");
+
+    histogram.reset();
+    histogram.record(42);
+    assertEquals(42, histogram.getPercentile(50), "Fel: Små värden ska vara exakta.");
+  }
+
+  @Test
+  @DisplayName("Testar att hinkarna täcker alla värden i stigande ordning.")
+  void histogramBuckets() {
+    long previous = -1;
+    for (long value : new long[] {0, 1, 127, 128, 130, 1000, 1L << 40, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.index(value);
+      assertTrue(LatencyHistogram.highestIn(index) >= value, "Fel: " + value + " ligger över sin hinks gräns.");
+      assertTrue(index > previous, "Fel: Hinkarna ska komma i stigande ordning.");
+      previous = index;
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att alla anrop mäts och att grafens storlek består.")
+  void runsWorkload() throws InterruptedException {
+    ListGraph<String> graph = new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.GRID, 400, 4, 2).generate(graph);
+    LoadHarness<String> harness = new LoadHarness<>(graph, i -> "last-" + i);
+    harness.setWeight(LoadHarness.Operation.REMOVE, 0);
+
+    LoadHarness.Report report = harness.run(5000, 1, 7);
+    long skipped = 0;
+    for (LoadHarness.Operation operation : LoadHarness.Operation.values()) {
+      skipped += report.getSkipped(operation);
+    }
+    assertEquals(5000, report.getOperations() + skipped, "Fel: Fel antal anrop.");
+    long added = report.getLatencies(LoadHarness.Operation.ADD).getCount();
+    assertTrue(added > 0, "Fel: Inga noder lades till.");
+    assertEquals(400 + added, graph.getNodes().size(), "Fel: Fel antal noder efteråt.");
+    assertEquals(0, report.getLatencies(LoadHarness.Operation.REMOVE).getCount(), "Fel: REMOVE är avstängd.");
+    assertTrue(report.toString().contains("SHORTEST_PATH"), "Fel: Rapporten saknar en operation.");
+  }
+
+  @Test
+  @DisplayName("Testar att nya noder får bågar och att bara borttagningar som blev av mäts.")
+  void removesConnectedNodes() throws InterruptedException {
+    ListGraph<String> graph = new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.GRID, 400, 4, 2).generate(graph);
+    LoadHarness<String> harness = new LoadHarness<>(graph, i -> "last-" + i);
+    for (LoadHarness.Operation operation : LoadHarness.Operation.values()) {
+      harness.setWeight(operation, 0);
+    }
+    harness.setWeight(LoadHarness.Operation.ADD, 1);
+    harness.setWeight(LoadHarness.Operation.REMOVE, 1);
+
+    LoadHarness.Report report = harness.run(2000, 1, 11);
+    long added = report.getLatencies(LoadHarness.Operation.ADD).getCount();
+    long removed = report.getLatencies(LoadHarness.Operation.REMOVE).getCount();
+    assertEquals(2000, added + removed + report.getSkipped(LoadHarness.Operation.REMOVE), "Fel: Fel antal anrop.");
+    assertEquals(400 + added - removed, graph.getNodes().size(), "Fel: Fel antal noder efteråt.");
+    for (String node : graph.getNodes()) {
+      if (node.startsWith("last-")) {
+        assertFalse(graph.getEdgesFrom(node).isEmpty(), "Fel: " + node + " saknar bågar.");
+      }
+    }
+  }
+}
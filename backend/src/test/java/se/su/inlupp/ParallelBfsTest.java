@@ -0,0 +1,124 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelBfsTest {
+
+  // Vanlig BFS över Graph-gränssnittet att jämföra med
+  private static <T> Map<T, Integer> expected(Graph<T> graph, T source) {
+    Map<T, Integer> distances = new HashMap<>();
+    ArrayDeque<T> queue = new ArrayDeque<>();
+    distances.put(source, 0);
+    queue.add(source);
+    while (!queue.isEmpty()) {
+      T current = queue.poll();
+      for (Edge<T> edge : graph.getEdgesFrom(current)) {
+        if (!distances.containsKey(edge.getDestination())) {
+          distances.put(edge.getDestination(), distances.get(current) + 1);
+          queue.add(edge.getDestination());
+        }
+      }
+    }
+    return distances;
+  }
+
+  private static <T> void assertSameDistances(Graph<T> graph, CsrGraph<T> csr, T source, int[] actual) {
+    Map<T, Integer> expected = expected(graph, source);
+    assertEquals(csr.nodeCount(), actual.length, "Fel: Fel antal avstånd.");
+    for (int id = 0; id < actual.length; id++) {
+      Integer distance = expected.get(csr.nodeAt(id));
+      assertEquals(distance == null ? ParallelBfs.UNREACHED : distance, actual[id], "Fel: Fel avstånd till " + csr.nodeAt(id));
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att avstånden stämmer i en liten graf med noder som inte går att nå.")
+  void smallGraph() {
+    ListGraph<String> graph = new ListGraph<>();
+    for (String node : List.of("A", "B", "C", "D", "E")) {
+      graph.add(node);
+    }
+    graph.connect("A", "B", "väg", 5);
+    graph.connect("B", "C", "väg", 1);
+    graph.connect("A", "C", "väg", 9);
+    graph.connect("C", "D", "väg", 1);
+    CsrGraph<String> csr = CsrGraph.freeze(graph);
+
+    int[] distances = ParallelBfs.distances(csr, "A");
+    assertSameDistances(graph, csr, "A", distances);
+    assertEquals(ParallelBfs.UNREACHED, distances[csr.indexOf("E")], "Fel: E ska inte gå att nå.");
+    assertThrows(NoSuchElementException.class, () -> ParallelBfs.distances(csr, "X"));
+  }
+
+  @Test
+  @DisplayName("Testar att avstånden stämmer i en stor graf där sökningen byter riktning.")
+  void largeGraph() {
+    ListGraph<Integer> graph = new ListGraph<>();
+    int count = 50_000;
+    Random random = new Random(7);
+    for (int i = 0; i < count; i++) {
+      graph.add(i);
+    }
+    for (int i = 1; i < count - 100; i++) {
+      graph.connect(i, random.nextInt(i), "väg", 1); // sammanhängande träd
+    }
+    for (int i = 0; i < 3 * count; i++) {
+      int from = random.nextInt(count - 100);
+      int to = random.nextInt(count - 100);
+      if (from != to && graph.getEdgeBetween(from, to) == null) {
+        graph.connect(from, to, "väg", 1);
+      }
+    }
+    CsrGraph<Integer> csr = CsrGraph.freeze(graph);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      int source = csr.indexOf(0);
+      assertSameDistances(graph, csr, 0, ParallelBfs.distances(csr, source, pool));
+      assertSameDistances(graph, csr, count - 1, ParallelBfs.distances(csr, csr.indexOf(count - 1), pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+  @Test
+  @DisplayName("Testar en tät del följd av en lång kedja, så att sökningen byter riktning fram och tillbaka.")
+  void clusterAndChain() {
+    ListGraph<Integer> graph = new ListGraph<>();
+    int cluster = 20_000;
+    int chain = 30_000;
+    Random random = new Random(19);
+    for (int i = 0; i < cluster + chain; i++) {
+      graph.add(i);
+    }
+    for (int i = 1; i < cluster; i++) {
+      graph.connect(i, random.nextInt(i), "väg", 1);
+    }
+    for (int i = 0; i < 4 * cluster; i++) {
+      int from = random.nextInt(cluster);
+      int to = random.nextInt(cluster);
+      if (from != to && graph.getEdgeBetween(from, to) == null) {
+        graph.connect(from, to, "väg", 1);
+      }
+    }
+    for (int i = cluster; i < cluster + chain; i++) {
+      graph.connect(i - 1, i, "väg", 1);
+    }
+    CsrGraph<Integer> csr = CsrGraph.freeze(graph);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertSameDistances(graph, csr, 0, ParallelBfs.distances(csr, csr.indexOf(0), pool));
+      assertSameDistances(graph, csr, cluster + chain - 1, ParallelBfs.distances(csr, csr.indexOf(cluster + chain - 1), pool));
+      assertThrows(NoSuchElementException.class, () -> ParallelBfs.distances(csr, -1, pool), "Fel: Ogiltigt id ska ge undantag.");
+      assertThrows(NoSuchElementException.class, () -> ParallelBfs.distances(csr, csr.nodeCount(), pool),
+          "Fel: Ogiltigt id ska ge undantag.");
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelGraphLoaderTest {
+
+  @TempDir
+  Path directory;
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @AfterEach
+  void shutdown() {
+    pool.shutdown();
+  }
+
+  // Slumpmässig fil där varje förbindelse står åt båda hållen, som när GUI:t sparar
+  private Path createRandomFile(int nodes, int edges, long seed) throws IOException {
+    Random random = new Random(seed);
+    StringBuilder sb = new StringBuilder("karta.gif\n");
+    for (int i = 0; i < nodes; i++) {
+      sb.append(i == 0 ? "" : ";").append("Stad ").append(i).append(';').append(i * 1.5).append(';').append(i % 97);
+    }
+    sb.append('\n');
+    for (int i = 0; i < edges; i++) {
+      int from = random.nextInt(nodes);
+      int to = (from + 1 + random.nextInt(nodes - 1)) % nodes;
+      String name = random.nextBoolean() ? "Tåg" : "Buss " + random.nextInt(10);
+      int weight = random.nextInt(100);
+      sb.append("Stad ").append(from).append(";Stad ").append(to).append(';').append(name).append(';').append(weight).append('\n');
+      if (random.nextInt(4) != 0) {
+        sb.append("Stad ").append(to).append(";Stad ").append(from).append(';').append(name).append(';').append(weight).append("\r\n");
+      }
+    }
+    Path file = directory.resolve("slump.graph");
+    Files.writeString(file, sb, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @Test
+  @DisplayName("Testar att parallell inläsning ger samma graf som GraphIO.read.")
+  void matchesSequentialReader() throws IOException {
+    Path file = createRandomFile(300, 3000, 11);
+    SpatialGraph<String> expected = new SpatialGraph<>();
+    String image = GraphIO.read(file, expected);
+
+    ParallelGraphLoader.Result result = new ParallelGraphLoader(pool, 1024).load(file);
+    CsrGraph<String> actual = result.getGraph();
+    assertTrue(result.getChunks() > 1, "Fel: Filen delades inte upp.");
+    assertEquals(image, result.getImagePath(), "Fel: Fel sökväg till bilden.");
+    assertEquals(expected.getNodes(), actual.getNodes(), "Fel: Noderna skiljer sig.");
+    for (String node : expected.getNodes()) {
+      assertEquals(expected.getX(node), actual.getX(node), "Fel: Positionen skiljer sig.");
+      assertEquals(expected.getEdgesFrom(node).size(), actual.getEdgesFrom(node).size(), "Fel: Fel antal bågar från " + node);
+      for (Edge<String> edge : expected.getEdgesFrom(node)) {
+        Edge<String> other = actual.getEdgeBetween(node, edge.getDestination());
+        assertNotNull(other, "Fel: En båge saknas.");
+        assertEquals(edge.toString(), other.toString(), "Fel: Bågen skiljer sig.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att genomströmningen rapporteras.")
+  void reportsThroughput() throws IOException {
+    Path file = createRandomFile(50, 500, 3);
+    ParallelGraphLoader.Result result = new ParallelGraphLoader(pool).load(file);
+    long lines = Files.readAllLines(file).size() - 2;
+    assertEquals(lines, result.getRecords(), "Fel: Fel antal förbindelserader.");
+    assertTrue(result.getEdgesPerSecond() > 0, "Fel: Genomströmningen saknas.");
+  }
+
+  @Test
+  @DisplayName("Testar att okända noder och fel format ger IOException.")
+  void rejectsBadLines() throws IOException {
+    Path unknown = directory.resolve("okand.graph");
+    Files.writeString(unknown, "karta.gif\nA;1.0;2.0;B;3.0;4.0\nA;C;Buss;3\n", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> new ParallelGraphLoader(pool).load(unknown));
+
+    Path fields = directory.resolve("falt.graph");
+    Files.writeString(fields, "karta.gif\nA;1.0;2.0;B;3.0;4.0\nA;B;Buss\n", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> new ParallelGraphLoader(pool).load(fields));
+  }
+  // Bågarna från varje nod som sorterad text, så att även öglornas två bågar jämförs
+  private static Map<String, List<String>> edges(Graph<String> graph) {
+    Map<String, List<String>> edges = new TreeMap<>();
+    for (String node : graph.getNodes()) {
+      List<String> row = new ArrayList<>();
+      for (Edge<String> edge : graph.getEdgesFrom(node)) {
+        row.add(edge.toString());
+      }
+      Collections.sort(row);
+      edges.put(node, row);
+    }
+    return edges;
+  }
+
+  @Test
+  @DisplayName("Testar att båda inläsarna ger samma graf för #undirected, namn som börjar med # och öglor.")
+  void loadersAgree() throws IOException {
+    String nodes = "karta.gif\n#1;1.0;2.0;B;3.0;4.0;C;5.0;6.0\n";
+    Map<String, String> files = new LinkedHashMap<>();
+    files.put("halv.graph", nodes + "#undirected\n#1;B;Buss;3\n#1;#1;Runt;1\nC;B;Tåg;2\n");
+    files.put("tom.graph", nodes + "\n  #undirected  \n\n#1;B;Buss;3\n");
+    files.put("hel.graph", nodes + "#1;B;Buss;3\nB;#1;Buss;3\n#1;#1;Runt;1\n#1;#1;Runt;1\nC;C;Runt;4\n");
+    for (Map.Entry<String, String> entry : files.entrySet()) {
+      Path file = directory.resolve(entry.getKey());
+      Files.writeString(file, entry.getValue(), StandardCharsets.UTF_8);
+      SpatialGraph<String> expected = new SpatialGraph<>();
+      GraphIO.read(file, expected);
+      CsrGraph<String> actual = new ParallelGraphLoader(pool, 16).load(file).getGraph();
+      assertEquals(edges(expected), edges(actual), "Fel: Inläsarna skiljer sig för " + entry.getKey());
+      assertEquals(3, actual.getEdgeBetween("#1", "B").getWeight(), "Fel: Förbindelsen från #1 saknas i " + entry.getKey());
+    }
+
+    Path late = directory.resolve("sen.graph");
+    Files.writeString(late, nodes + "#1;B;Buss;3\n#undirected\n", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> GraphIO.read(late, new SpatialGraph<>()));
+    assertThrows(IOException.class, () -> new ParallelGraphLoader(pool, 16).load(late));
+  }
+
+  @Test
+  @DisplayName("Testar att båda inläsarna avvisar en förbindelse som står två gånger i en #undirected-fil.")
+  void undirectedDuplicatesRejected() throws IOException {
+    String nodes = "karta.gif\nA;1.0;2.0;B;3.0;4.0;C;5.0;6.0\n#undirected\n";
+    Map<String, String> files = new LinkedHashMap<>();
+    files.put("omvand.graph", nodes + "A;B;v;1\nC;A;t;3\nB;A;w;2\n");
+    files.put("ogla.graph", nodes + "A;B;v;1\nC;C;r;1\nC;C;r;1\n");
+    for (Map.Entry<String, String> entry : files.entrySet()) {
+      Path file = directory.resolve(entry.getKey());
+      Files.writeString(file, entry.getValue(), StandardCharsets.UTF_8);
+      assertThrows(IOException.class, () -> GraphIO.read(file, new SpatialGraph<>()),
+          "Fel: GraphIO ska avvisa " + entry.getKey());
+      assertThrows(IOException.class, () -> new ParallelGraphLoader(pool, 16).load(file),
+          "Fel: ParallelGraphLoader ska avvisa " + entry.getKey());
+    }
+  }
+}
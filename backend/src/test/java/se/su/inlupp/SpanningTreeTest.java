@@ -0,0 +1,121 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpanningTreeTest {
+
+  // Totalvikt genom att pröva alla delmängder av förbindelserna med rätt antal
+  private static long bruteForce(ListGraph<String> graph) {
+    List<String> nodes = new ArrayList<>(graph.getNodes());
+    List<String[]> pairs = new ArrayList<>();
+    List<Integer> weights = new ArrayList<>();
+    for (String node : nodes) {
+      for (Edge<String> edge : graph.getEdgesFrom(node)) {
+        if (node.compareTo(edge.getDestination()) < 0) {
+          pairs.add(new String[] {node, edge.getDestination()});
+          weights.add(edge.getWeight());
+        }
+      }
+    }
+    long best = Long.MAX_VALUE;
+    for (int mask = 0; mask < 1 << pairs.size(); mask++) {
+      if (Integer.bitCount(mask) != nodes.size() - 1) {
+        continue;
+      }
+      UnionFind sets = new UnionFind(nodes.size());
+      long total = 0;
+      boolean tree = true;
+      for (int i = 0; i < pairs.size() && tree; i++) {
+        if ((mask & 1 << i) != 0) {
+          tree = sets.union(nodes.indexOf(pairs.get(i)[0]), nodes.indexOf(pairs.get(i)[1]));
+          total += weights.get(i);
+        }
+      }
+      if (tree) {
+        best = Math.min(best, total);
+      }
+    }
+    return best;
+  }
+
+  @Test
+  @DisplayName("Testar att Kruskal och Prim ger minsta totalvikt i små slumpade grafer.")
+  void matchesBruteForce() {
+    Random random = new Random(4);
+    for (int round = 0; round < 30; round++) {
+      ListGraph<String> graph = new ListGraph<>();
+      for (int i = 0; i < 6; i++) {
+        graph.add("N" + i);
+      }
+      for (int i = 1; i < 6; i++) {
+        graph.connect("N" + i, "N" + random.nextInt(i), "väg", random.nextInt(10)); // sammanhängande
+      }
+      for (int i = 0; i < 8; i++) {
+        String a = "N" + random.nextInt(6);
+        String b = "N" + random.nextInt(6);
+        if (!a.equals(b) && graph.getEdgeBetween(a, b) == null) {
+          graph.connect(a, b, "väg", random.nextInt(10));
+        }
+      }
+
+      long expected = bruteForce(graph);
+      SpanningTree<String> kruskal = SpanningTree.kruskal(graph);
+      SpanningTree<String> prim = SpanningTree.prim(graph);
+      assertEquals(expected, kruskal.getTotalWeight(), "Fel: Kruskal gav fel vikt.");
+      assertEquals(expected, prim.getTotalWeight(), "Fel: Prim gav fel vikt.");
+      assertEquals(5, kruskal.size(), "Fel: Ett träd över 6 noder har 5 förbindelser.");
+      assertEquals(5, prim.size(), "Fel: Ett träd över 6 noder har 5 förbindelser.");
+      assertTrue(prim.isSpanningTree(), "Fel: Grafen är sammanhängande.");
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en osammanhängande graf ger en skog och att trädet blir en graf.")
+  void forestAndGraph() {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    graph.add("A", 0, 0);
+    graph.add("B", 1, 0);
+    graph.add("C", 2, 0);
+    graph.add("D", 5, 5);
+    graph.add("E", 6, 5);
+    graph.add("F", 9, 9);
+    graph.connect("A", "B", "väg", 1);
+    graph.connect("B", "C", "väg", 2);
+    graph.connect("A", "C", "väg", 5);
+    graph.connect("D", "E", "färja", 4);
+    graph.connect("A", "A", "ögla", 0);
+
+    for (SpanningTree<String> tree : List.of(SpanningTree.kruskal(graph), SpanningTree.prim(graph))) {
+      assertEquals(3, tree.getComponents(), "Fel: Grafen har tre delar.");
+      assertFalse(tree.isSpanningTree(), "Fel: En skog är inget träd.");
+      assertEquals(3, tree.size(), "Fel: Fel antal förbindelser.");
+      assertEquals(7, tree.getTotalWeight(), "Fel: Fel totalvikt.");
+
+      SpatialGraph<String> result = tree.toGraph();
+      assertEquals(graph.getNodes(), result.getNodes(), "Fel: Alla noder ska vara med.");
+      assertNull(result.getEdgeBetween("A", "C"), "Fel: Den dyra förbindelsen ska inte vara med.");
+      assertNull(result.getEdgeBetween("A", "A"), "Fel: Öglor ska inte vara med.");
+      assertEquals("färja", result.getEdgeBetween("D", "E").getName(), "Fel: Namnet ska följa med.");
+      assertEquals(5.0, result.getX("D"), "Fel: Positionen ska följa med.");
+      for (int i = 0; i < tree.size(); i++) {
+        assertNotNull(graph.getEdgeBetween(tree.getFrom(i), tree.getEdge(i).getDestination()), "Fel: Förbindelsen finns inte.");
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att Kruskal och Prim ger samma vikt i en stor graf.")
+  void largeGraph() {
+    ListGraph<String> graph = new ListGraph<>();
+    new GraphGenerator(GraphGenerator.Shape.GEOMETRIC, 20_000, 8, 3).generate(graph);
+    SpanningTree<String> kruskal = SpanningTree.kruskal(graph);
+    SpanningTree<String> prim = SpanningTree.prim(graph);
+    assertEquals(kruskal.getTotalWeight(), prim.getTotalWeight(), "Fel: Algoritmerna ska ge samma vikt.");
+    assertEquals(kruskal.getComponents(), prim.getComponents(), "Fel: Algoritmerna ska ge samma antal delar.");
+    assertEquals(20_000 - kruskal.getComponents(), kruskal.size(), "Fel: En skog har en förbindelse mindre än noder per träd.");
+  }
+}
@@ -0,0 +1,71 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialGraphTest {
+
+  private final SpatialGraph<Integer> graph = new SpatialGraph<>();
+
+  // Slumpmässigt geometriskt nät där vikten är avståndet avrundat uppåt
+  private void createGeometricGraph(int count, double radius, long seed) {
+    Random random = new Random(seed);
+    for (int i = 0; i < count; i++) {
+      graph.add(i, random.nextDouble() * 1000, random.nextDouble() * 1000);
+    }
+    for (int i = 0; i < count; i++) {
+      for (int j = i + 1; j < count; j++) {
+        double distance = Math.hypot(graph.getX(i) - graph.getX(j), graph.getY(i) - graph.getY(j));
+        if (distance < radius) {
+          graph.connect(i, j, "väg", (int) Math.ceil(distance));
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att A* hittar lika billiga vägar som Dijkstra.")
+  void aStarMatchesDijkstra() {
+    createGeometricGraph(600, 80, 42);
+    Random random = new Random(7);
+    for (int i = 0; i < 50; i++) {
+      int from = random.nextInt(600);
+      int to = random.nextInt(600);
+      var aStar = graph.findShortestPath(from, to);
+      var dijkstra = graph.findShortestPathDijkstra(from, to);
+      assertEquals(dijkstra.isFound(), aStar.isFound(), "Fel: A* och Dijkstra är oense om vägen finns.");
+      assertEquals(dijkstra.getTotalWeight(), aStar.getTotalWeight(), "Fel: A* hittade inte den billigaste vägen.");
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att A* expanderar färre noder än Dijkstra.")
+  void aStarExpandsFewerNodes() {
+    createGeometricGraph(1500, 60, 3);
+    long aStarExpanded = 0;
+    long dijkstraExpanded = 0;
+    for (int i = 0; i < 20; i++) {
+      aStarExpanded += graph.findShortestPath(i, 1499 - i).getExpandedNodes();
+      dijkstraExpanded += graph.findShortestPathDijkstra(i, 1499 - i).getExpandedNodes();
+    }
+    assertTrue(aStarExpanded < dijkstraExpanded,
+        "Fel: A* expanderade " + aStarExpanded + " noder men Dijkstra bara " + dijkstraExpanded + ".");
+  }
+
+  @Test
+  @DisplayName("Testar att noder utan position ger Dijkstra.")
+  void missingPositionFallsBackToDijkstra() {
+    graph.add(1, 0, 0);
+    graph.add(2);
+    graph.add(3, 10, 0);
+    graph.connect(1, 2, "a", 1);
+    graph.connect(2, 3, "b", 1);
+    graph.connect(1, 3, "c", 5);
+    assertFalse(graph.hasPosition(2));
+    assertEquals(2, graph.getShortestPath(1, 3).size(), "Fel: vägen via noden utan position är billigast.");
+    assertThrows(NoSuchElementException.class, () -> graph.getX(2));
+  }
+}
@@ -0,0 +1,31 @@
+package se.su.inlupp;
+
+import java.util.*;
+
+// Grafer och hjälpmetoder som flera testklasser delar
+final class TestGraphs {
+
+  private TestGraphs() {
+  }
+
+  // Slumpmässig graf med noderna N0, N1, ...; de tre sista noderna får inga förbindelser och
+  // går alltså inte att nå. Vikterna är 0–49, så även vägar med vikten 0 förekommer.
+  static void randomGraph(Graph<String> graph, int count, int edges, long seed) {
+    Random random = new Random(seed);
+    for (int i = 0; i < count; i++) {
+      graph.add("N" + i);
+    }
+    for (int i = 0; i < edges; i++) {
+      String from = "N" + random.nextInt(count - 3);
+      String to = "N" + random.nextInt(count - 3);
+      if (!from.equals(to) && graph.getEdgeBetween(from, to) == null) {
+        graph.connect(from, to, "väg", random.nextInt(50));
+      }
+    }
+  }
+
+  // Summan av vikterna längs vägen
+  static long cost(List<? extends Edge<?>> path) {
+    return path.stream().mapToLong(Edge::getWeight).sum();
+  }
+}
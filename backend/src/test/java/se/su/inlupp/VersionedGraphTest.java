@@ -0,0 +1,114 @@
+package se.su.inlupp;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedGraphTest {
+
+  private final VersionedGraph<String> graph = new VersionedGraph<>();
+
+  private void createChain(int length) {
+    for (int i = 0; i < length; i++) {
+      graph.add("N" + i);
+    }
+    for (int i = 1; i < length; i++) {
+      graph.connect("N" + (i - 1), "N" + i, "kedja", 1);
+    }
+  }
+
+  @Test
+  @DisplayName("Testar att en version inte påverkas av senare ändringar.")
+  void snapshotIsIsolatedFromWriters() {
+    createChain(10);
+    GraphSnapshot<String> before = graph.snapshot();
+
+    graph.setConnectionWeight("N0", "N1", 7);
+    graph.disconnect("N4", "N5");
+    graph.remove("N9");
+    graph.add("Ny");
+
+    assertEquals(1, before.getEdgeBetween("N0", "N1").getWeight(), "Fel: den gamla versionen fick den nya vikten.");
+    assertEquals(9, before.getShortestPath("N0", "N9").size());
+    assertTrue(before.getNodes().contains("N9"));
+    assertFalse(before.getNodes().contains("Ny"));
+
+    assertEquals(7, graph.getEdgeBetween("N1", "N0").getWeight());
+    assertFalse(graph.pathExists("N0", "N8"));
+    assertThrows(NoSuchElementException.class, () -> graph.getEdgesFrom("N9"));
+    assertThrows(UnsupportedOperationException.class, () -> before.add("X"));
+    assertTrue(graph.getVersion() > before.getVersion());
+  }
+
+  @Test
+  @DisplayName("Testar att äldre versioner bara håller kvar det som har ändrats.")
+  void retainedBytesFollowChanges() {
+    createChain(2000);
+    GraphSnapshot<String> old = graph.snapshot();
+    assertEquals(0, graph.getRetainedBytes(), "Fel: den senaste versionen ska inte räknas.");
+
+    graph.setConnectionWeight("N10", "N11", 5);
+    long small = graph.getRetainedBytes();
+    for (int i = 100; i < 1100; i++) {
+      graph.setConnectionWeight("N" + i, "N" + (i + 1), 5);
+    }
+    long large = graph.getRetainedBytes();
+
+    assertTrue(small > 0, "Fel: den gamla versionen borde hålla kvar de ändrade bågarna.");
+    assertTrue(large > small * 10, "Fel: fler ändringar borde hålla kvar mer minne.");
+    assertEquals(1, graph.getRetainedVersions());
+    assertEquals(1, old.getEdgeBetween("N10", "N11").getWeight());
+  }
+
+  @Test
+  @DisplayName("Testar att versioner som ingen använder slutar följas utan att getRetainedBytes anropas.")
+  void releasedVersionsArePruned() throws InterruptedException {
+    createChain(10);
+    for (int i = 0; i < 5000; i++) {
+      graph.setConnectionWeight("N1", "N2", i);
+      graph.snapshot();
+      assertSame(graph.snapshot(), graph.snapshot(), "Fel: samma version ska lämnas ut utan ändring.");
+    }
+    // Skräpsamlaren rensar referenserna; de tas bort nästa gång en ny version lämnas ut
+    for (int attempt = 0; attempt < 50 && graph.trackedVersions() > 10; attempt++) {
+      System.gc();
+      Thread.sleep(20);
+      graph.setConnectionWeight("N1", "N2", attempt);
+      graph.snapshot();
+    }
+    assertTrue(graph.trackedVersions() <= 10, "Fel: släppta versioner ska inte samlas på sig.");
+  }
+
+  // Nyckel med dålig hash så att krockar i trien testas
+  private record Key(int value) {
+    @Override
+    public int hashCode() {
+      return value % 7;
+    }
+  }
+
+  @Test
+  @DisplayName("Testar den oföränderliga hashtrien mot HashMap.")
+  void persistentMapMatchesHashMap() {
+    Random random = new Random(1);
+    PersistentMap<Object, Integer> map = PersistentMap.empty();
+    Map<Object, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20000; i++) {
+      Object key = random.nextBoolean() ? (Object) random.nextInt(500) : new Key(random.nextInt(100));
+      if (random.nextInt(3) == 0) {
+        map = map.without(key);
+        expected.remove(key);
+      } else {
+        map = map.with(key, i);
+        expected.put(key, i);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected.keySet(), map.keySet());
+    for (Map.Entry<Object, Integer> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package se.su.inlupp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+
+// Graf och slumpade frågor som delas av benchmarkerna. Frågorna dras i förväg så att
+// slumptalen inte mäts, och går runt i en ring.
+@State(Scope.Benchmark)
+public class GraphState {
+  static final int QUERIES = 1 << 12;
+  static final long SEED = 42;
+
+  @Param({"1000", "100000"})
+  public int size;
+
+  @Param({"CHAIN", "GRID", "SCALE_FREE", "GEOMETRIC"})
+  public GraphGenerator.Shape shape;
+
+  // Ungefärligt antal grannar per nod
+  @Param({"4", "8"})
+  public int degree;
+
+  public ListGraph<String> graph;
+  String[] from;
+  String[] to;
+  String[] neighbor; // en granne till from, för getEdgeBetween
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    graph = new ListGraph<>();
+    new GraphGenerator(shape, size, degree, SEED).generate(graph);
+    Random random = new Random(SEED + 1);
+    from = new String[QUERIES];
+    to = new String[QUERIES];
+    neighbor = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      from[i] = GraphGenerator.name(random.nextInt(size));
+      to[i] = GraphGenerator.name(random.nextInt(size));
+      neighbor[i] = graph.getEdgesFrom(from[i]).stream()
+          .map(Edge::getDestination).findFirst().orElse(to[i]);
+    }
+  }
+
+  int next() {
+    int index = next;
+    next = (index + 1) & (QUERIES - 1);
+    return index;
+  }
+}
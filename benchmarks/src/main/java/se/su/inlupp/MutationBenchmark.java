@@ -0,0 +1,71 @@
+package se.su.inlupp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Ändringar förbrukar grafen, så varje mätning är en sats med BATCH anrop mot en nybyggd graf.
+// Resultatet är tid per sats; dela BATCH med tiden för anrop per sekund.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = MutationBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = MutationBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MutationBenchmark {
+  static final int BATCH = 1000;
+
+  @Param({"1000", "100000"})
+  public int size;
+
+  @Param({"CHAIN", "GRID", "SCALE_FREE", "GEOMETRIC"})
+  public GraphGenerator.Shape shape;
+
+  @Param({"4", "8"})
+  public int degree;
+
+  private ListGraph<String> graph;
+  private String[] pairs; // par av noder utan förbindelse, för connect
+  private String[] victims; // olika noder, för remove; size är minst BATCH
+  private int next;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    graph = new ListGraph<>();
+    new GraphGenerator(shape, size, degree, GraphState.SEED).generate(graph);
+    Random random = new Random(GraphState.SEED + 1);
+    Set<Long> chosen = new HashSet<>();
+    pairs = new String[2 * BATCH];
+    for (int i = 0; i < BATCH; ) {
+      int from = random.nextInt(size);
+      int to = random.nextInt(size);
+      if (from != to && graph.getEdgeBetween(GraphGenerator.name(from), GraphGenerator.name(to)) == null
+          && chosen.add((long) Math.min(from, to) << 32 | Math.max(from, to))) {
+        pairs[2 * i] = GraphGenerator.name(from);
+        pairs[2 * i + 1] = GraphGenerator.name(to);
+        i++;
+      }
+    }
+    victims = random.ints(0, size).distinct().limit(BATCH).mapToObj(GraphGenerator::name).toArray(String[]::new);
+    next = 0;
+  }
+
+  @Benchmark
+  public void add() {
+    graph.add(GraphGenerator.name(size + next++));
+  }
+
+  @Benchmark
+  public void connect() {
+    int i = next++;
+    graph.connect(pairs[2 * i], pairs[2 * i + 1], "väg", 1);
+  }
+
+  @Benchmark
+  public void remove() {
+    graph.remove(victims[next++]);
+  }
+}
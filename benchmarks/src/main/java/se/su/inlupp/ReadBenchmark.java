@@ -0,0 +1,48 @@
+package se.su.inlupp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Läsningar mot en färdig graf, i anrop per sekund
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+  @Benchmark
+  public Edge<String> getEdgeBetween(GraphState state) {
+    int i = state.next();
+    return state.graph.getEdgeBetween(state.from[i], state.neighbor[i]);
+  }
+
+  @Benchmark
+  public void getNodes(GraphState state, Blackhole blackhole) {
+    for (String node : state.graph.getNodes()) {
+      blackhole.consume(node);
+    }
+  }
+
+  @Benchmark
+  public void getEdgesFrom(GraphState state, Blackhole blackhole) {
+    for (Edge<String> edge : state.graph.getEdgesFrom(state.from[state.next()])) {
+      blackhole.consume(edge);
+    }
+  }
+
+  @Benchmark
+  public boolean pathExists(GraphState state) {
+    int i = state.next();
+    return state.graph.pathExists(state.from[i], state.to[i]);
+  }
+
+  @Benchmark
+  public List<Edge<String>> getPath(GraphState state) {
+    int i = state.next();
+    return state.graph.getPath(state.from[i], state.to[i]);
+  }
+}
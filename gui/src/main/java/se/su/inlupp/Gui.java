@@ -10,8 +10,6 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
-import java.io.PrintWriter;
-import java.io.FileWriter;
 import java.io.File;
 import java.util.Optional;
 import javafx.scene.SnapshotParameters;
@@ -83,7 +81,8 @@ class PlaceNode extends Pane {
 }
 
 public class Gui extends Application {
-  private Graph<String> graph = new ListGraph<>();
+  private static final int PATH_ALTERNATIVES = 5; // antal vägar som visas i Find Path
+  private SpatialGraph<String> graph = createGraph();
   private ImageView mapView;
   private Pane mapPane;
   private Stage primaryStage;
@@ -152,6 +151,13 @@ public class Gui extends Application {
     });
   }
 
+  // pathExists anropas före varje vägsökning, så grafen håller ett index över komponenterna
+  private static SpatialGraph<String> createGraph() {
+    SpatialGraph<String> graph = new SpatialGraph<>();
+    graph.setConnectivityIndexEnabled(true);
+    return graph;
+  }
+
   // new place
   private void activateNewPlaceMode() {
     mapPane.setCursor(Cursor.CROSSHAIR);
@@ -188,7 +194,7 @@ public class Gui extends Application {
   private void addVisualNode(String name, double x, double y) {
     PlaceNode node = new PlaceNode(name, x, y);
     mapPane.getChildren().add(node);
-    graph.add(name);
+    graph.add(name, x, y);
   }
 
   public static void onPlaceNodeSelected(PlaceNode node) {
@@ -383,7 +389,8 @@ public class Gui extends Application {
       showAlert("Error!", "No path exists between " + a.getName() + " and " + b.getName());
       return;
     }
-    List<Edge<String>> path = graph.getPath(a.getName(), b.getName());
+    // den kortaste vägen först, följd av alternativen
+    List<List<Edge<String>>> paths = graph.getShortestPaths(a.getName(), b.getName(), PATH_ALTERNATIVES);
 
     Dialog<ButtonType> dialog = new Dialog<>();
     dialog.setTitle("Message");
@@ -394,18 +401,19 @@ public class Gui extends Application {
     pathArea.setPrefRowCount(8);
     pathArea.setPrefColumnCount(50);
 
-    StringBuilder sb = new StringBuilder();
-    int total = 0;
-    for (Edge<String> e : path) {
-      sb.append("to ").append(e.getDestination()).append(" by ")
-          .append(e.getName()).append(" takes ").append(e.getWeight()).append("\n");
-      total += e.getWeight();
+    ComboBox<String> routeBox = new ComboBox<>();
+    for (int i = 0; i < paths.size(); i++) {
+      routeBox.getItems().add("Route " + (i + 1) + " (total " + totalWeight(paths.get(i)) + ")");
     }
-    sb.append("Total ").append(total);
-
-    pathArea.setText(sb.toString());
+    routeBox.getSelectionModel().selectedIndexProperty().addListener((obs, oldIndex, newIndex) -> {
+      if (newIndex.intValue() >= 0) {
+        pathArea.setText(describePath(paths.get(newIndex.intValue())));
+      }
+    });
+    routeBox.getSelectionModel().selectFirst();
 
-    dialog.getDialogPane().setContent(pathArea);
+    VBox content = new VBox(10, routeBox, pathArea);
+    dialog.getDialogPane().setContent(content);
 
     ButtonType okButtonType = new ButtonType("OK", ButtonBar.ButtonData.OK_DONE);
     dialog.getDialogPane().getButtonTypes().add(okButtonType);
@@ -413,6 +421,24 @@ public class Gui extends Application {
     dialog.showAndWait();
   }
 
+  private static long totalWeight(List<Edge<String>> path) {
+    long total = 0;
+    for (Edge<String> e : path) {
+      total += e.getWeight();
+    }
+    return total;
+  }
+
+  private static String describePath(List<Edge<String>> path) {
+    StringBuilder sb = new StringBuilder();
+    for (Edge<String> e : path) {
+      sb.append("to ").append(e.getDestination()).append(" by ")
+          .append(e.getName()).append(" takes ").append(e.getWeight()).append("\n");
+    }
+    sb.append("Total ").append(totalWeight(path));
+    return sb.toString();
+  }
+
   private void handleNewMapItem() {
     // Kontrollera osparade ändringar först
     if (!checkUnsavedChanges()) {
@@ -428,7 +454,7 @@ public class Gui extends Application {
     if (file != null) {
       try {
         // rensa gamla noder
-        graph = new ListGraph<>();
+        graph = createGraph();
 
         Image newImage = new Image(file.toURI().toString());
 
@@ -481,112 +507,69 @@ public class Gui extends Application {
 
     if (file != null) {
       try {
-        // Rensa gamla noder och graf
-        graph = new ListGraph<>();
-        selectedNodes.clear();
-
-        try (java.util.Scanner scanner = new java.util.Scanner(file, "UTF-8")) {
-          // läs första raden som är sökvägen till bakgrundsbilden
-          if (!scanner.hasNextLine()) {
-            throw new Exception("No image path in file");
-          }
-
-          String imagePath = scanner.nextLine().trim();
-
-          // hantera "file:" prefix om det finns
-          String actualImagePath = imagePath;
-          if (imagePath.startsWith("file:")) {
-            actualImagePath = imagePath.substring(5);
-          }
+        // läs in grafen först så att en trasig fil inte lämnar en halvladdad karta
+        SpatialGraph<String> loaded = createGraph();
+        String imagePath = GraphIO.read(file.toPath(), loaded);
+
+        // hantera "file:" prefix om det finns
+        String actualImagePath = imagePath;
+        if (imagePath.startsWith("file:")) {
+          actualImagePath = imagePath.substring(5);
+        }
 
-          // kontrollera sökväg
-          File imageFile = new File(actualImagePath);
+        // kontrollera sökväg
+        File imageFile = new File(actualImagePath);
+        if (!imageFile.exists()) {
+          // Try relative path from graph file's directory
+          imageFile = new File(file.getParent(), actualImagePath);
           if (!imageFile.exists()) {
-            // Try relative path from graph file's directory
-            imageFile = new File(file.getParent(), actualImagePath);
-            if (!imageFile.exists()) {
-              throw new Exception("Image file not found: " + actualImagePath);
-            }
+            throw new Exception("Image file not found: " + actualImagePath);
           }
+        }
 
-          // ladda in bilden
-          Image newImage = new Image(imageFile.toURI().toString());
-          if (newImage.isError()) {
-            throw new Exception("Failed to load image file: " + imageFile.getName());
-          }
-
-          // justera mapView och mapPane efter den uppladdade bilden
-          mapView.setImage(newImage);
-          mapView.setPreserveRatio(true);
-          mapPane.setMinSize(newImage.getWidth(), newImage.getHeight());
-          mapPane.setPrefSize(newImage.getWidth(), newImage.getHeight());
-
-          // cleara gamla mapPane och lägg till ny bild
-          mapPane.getChildren().clear();
-          mapPane.getChildren().add(mapView);
-
-          // // anpassa fönsterstorlek efter bilden
-          double menuHeight = 60;
-          double windowWidth = Math.max(newImage.getWidth(), 400);
-          double windowHeight = newImage.getHeight() + menuHeight;
-          primaryStage.setWidth(windowWidth);
-          primaryStage.setHeight(windowHeight);
+        // ladda in bilden
+        Image newImage = new Image(imageFile.toURI().toString());
+        if (newImage.isError()) {
+          throw new Exception("Failed to load image file: " + imageFile.getName());
+        }
 
-          currentMapImagePath = imageFile.getAbsolutePath();
+        // Rensa gamla noder och graf
+        graph = loaded;
+        selectedNodes.clear();
 
-          // läs andra raden från filen som innehåller noder
-          if (!scanner.hasNextLine()) {
-            throw new Exception("No nodes in file");
-          }
+        // justera mapView och mapPane efter den uppladdade bilden
+        mapView.setImage(newImage);
+        mapView.setPreserveRatio(true);
+        mapPane.setMinSize(newImage.getWidth(), newImage.getHeight());
+        mapPane.setPrefSize(newImage.getWidth(), newImage.getHeight());
 
-          String nodesLine = scanner.nextLine().trim();
-          if (!nodesLine.isEmpty()) {
-            String[] nodeData = nodesLine.split(";");
+        // cleara gamla mapPane och lägg till ny bild
+        mapPane.getChildren().clear();
+        mapPane.getChildren().add(mapView);
 
-            // proccessar noder i tre (nodeName, x, y)
-            for (int i = 0; i < nodeData.length; i += 3) {
-              if (i + 2 < nodeData.length) {
-                String nodeName = nodeData[i];
-                double x = Double.parseDouble(nodeData[i + 1]);
-                double y = Double.parseDouble(nodeData[i + 2]);
+        // // anpassa fönsterstorlek efter bilden
+        double menuHeight = 60;
+        double windowWidth = Math.max(newImage.getWidth(), 400);
+        double windowHeight = newImage.getHeight() + menuHeight;
+        primaryStage.setWidth(windowWidth);
+        primaryStage.setHeight(windowHeight);
 
-                graph.add(nodeName);
+        currentMapImagePath = imageFile.getAbsolutePath();
 
-                // rendera visuell nod
-                addVisualNode(nodeName, x, y);
-              }
-            }
-          }
+        // rendera visuella noder från grafens positioner
+        Map<String, PlaceNode> visualNodes = new HashMap<>();
+        for (String nodeName : graph.getNodes()) {
+          PlaceNode node = new PlaceNode(nodeName, graph.getX(nodeName), graph.getY(nodeName));
+          mapPane.getChildren().add(node);
+          visualNodes.put(nodeName, node);
+        }
 
-          // hantera edges
-          while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-            if (line.isEmpty())
-              continue;
-
-            String[] parts = line.split(";");
-            if (parts.length != 4) {
-              throw new Exception("Wrong Edge-format: " + line);
-            }
-
-            String from = parts[0];
-            String to = parts[1];
-            String name = parts[2];
-            int weight = Integer.parseInt(parts[3]);
-
-            // lägg till kanten i grafen
-            if (graph.getEdgeBetween(from, to) == null) {
-              graph.connect(from, to, name, weight);
-
-              // Create visual representation
-              PlaceNode fromNode = findPlaceNodeByName(from);
-              PlaceNode toNode = findPlaceNodeByName(to);
-              if (fromNode != null && toNode != null) {
-                drawEdge(fromNode, toNode);
-              }
-            }
+        // rita varje förbindelse en gång
+        graph.forEachEdge((from, edge) -> {
+          if (from.compareTo(edge.getDestination()) < 0) {
+            drawEdge(visualNodes.get(from), visualNodes.get(edge.getDestination()));
           }
-        }
+        });
 
         hasUnsavedChanges = false;
         System.out.println("Graph-file opened: " + file.getName());
@@ -598,19 +581,6 @@ public class Gui extends Application {
     }
   }
 
-  // hjälpmetod för att hitta en PlaceNode baserat på dess namn
-  private PlaceNode findPlaceNodeByName(String name) {
-    for (Node child : mapPane.getChildren()) {
-      if (child instanceof PlaceNode) {
-        PlaceNode placeNode = (PlaceNode) child;
-        if (placeNode.getName().equals(name)) {
-          return placeNode;
-        }
-      }
-    }
-    return null;
-  }
-
   private void handleSaveItem() {
 
     if (currentMapImagePath == null) {
@@ -631,48 +601,8 @@ public class Gui extends Application {
           file = new File(fileName + ".graph");
         }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file, java.nio.charset.StandardCharsets.UTF_8))) {
-          // 1. första raden är sökvägen till bakgrundsbilden
-          writer.println(currentMapImagePath);
-
-          // 2. Andra raden innehåller alla noder i format (nodeName;x;y;nodeName;x;y;...)
-          StringBuilder nodesLine = new StringBuilder();
-          boolean firstNode = true;
-
-          // hämta kordinater för varje PlaceNode i mapPane
-          Map<String, PlaceNode> visualNodes = new HashMap<>();
-          for (Node child : mapPane.getChildren()) {
-            if (child instanceof PlaceNode) {
-              PlaceNode placeNode = (PlaceNode) child;
-              visualNodes.put(placeNode.getName(), placeNode);
-            }
-          }
-
-          for (String nodeName : graph.getNodes()) {
-            if (!firstNode) {
-              nodesLine.append(";");
-            }
-
-            PlaceNode visualNode = visualNodes.get(nodeName);
-            double x = visualNode != null ? visualNode.getCenterX() : 0.0;
-            double y = visualNode != null ? visualNode.getCenterY() : 0.0;
-
-            nodesLine.append(nodeName).append(";").append(x).append(";").append(y);
-            firstNode = false;
-          }
-          writer.println(nodesLine.toString());
-
-          // 3. sist, alla kanter i format (fromNode;toNode;edgeName;weight)
-          for (String fromNode : graph.getNodes()) {
-            for (Edge<String> edge : graph.getEdgesFrom(fromNode)) {
-              String toNode = edge.getDestination();
-              String edgeName = edge.getName();
-              int weight = edge.getWeight();
-
-              writer.println(fromNode + ";" + toNode + ";" + edgeName + ";" + weight);
-            }
-          }
-        }
+        // varje förbindelse sparas bara en gång
+        GraphIO.write(file.toPath(), currentMapImagePath, graph, true);
 
         hasUnsavedChanges = false;
         System.out.println("Graph-file saved: " + file.getName());